@@ -0,0 +1,119 @@
+package cn.jaa.cas;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 各退避策略下 CAS 自增循环的吞吐和 CPU 消耗
+ * <p>
+ * 每次操作先做一点本地计算 ({@code work} 个 token), 再对同一个 AtomicLong 做 CAS 自增,
+ * 失败后交给退避策略. {@code cpuNanos} 是测量期间所有线程消耗的 CPU 时间,
+ * 除以迭代时长即平均占用的核数. 线程数超过核数时能看出自旋策略的代价.
+ * <pre>
+ *   java -cp target/benchmarks.jar cn.jaa.cas.BackoffBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class BackoffBenchmark {
+
+    @Param({"none", "spin", "exponential", "spinYieldPark"})
+    public String policy;
+
+    @Param({"0", "100"})
+    public int work;
+
+    Backoff backoff;
+    final AtomicLong counter = new AtomicLong();
+
+    @Setup
+    public void setup() {
+        switch (policy) {
+            case "none":
+                backoff = Backoff.none();
+                break;
+            case "spin":
+                backoff = Backoff.spin();
+                break;
+            case "exponential":
+                backoff = Backoff.exponential(4, 1024);
+                break;
+            case "spinYieldPark":
+                backoff = Backoff.spinYieldPark(16, 4, 10_000L);
+                break;
+            default:
+                throw new IllegalArgumentException(policy);
+        }
+    }
+
+    /**
+     * CPU time used by each benchmark thread during an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Cpu {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        public long cpuNanos;
+        private long start;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            cpuNanos = 0L;
+            start = THREADS.getCurrentThreadCpuTime();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            cpuNanos = THREADS.getCurrentThreadCpuTime() - start;
+        }
+    }
+
+    @Benchmark
+    public long increment(Cpu cpu) {
+        Blackhole.consumeCPU(work);
+        long v;
+        for (int attempt = 1; !counter.compareAndSet(v = counter.get(), v + 1); attempt++)
+            backoff.backoff(attempt);
+        return v;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = 4 * Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+            Options opt = new OptionsBuilder()
+                    .include(BackoffBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+}
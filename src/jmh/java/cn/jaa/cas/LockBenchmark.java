@@ -0,0 +1,155 @@
+package cn.jaa.cas;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: Demo03 式的临界区 (比较后赋值) 在各种锁下的吞吐和公平性
+ * <p>
+ * 每次迭代结束时打印各线程完成次数的 Jain 公平指数 (1 为完全均等, 1/n 为一个线程独占)
+ * 以及最少/最多的线程完成次数.
+ * <pre>
+ *   java -cp target/benchmarks.jar cn.jaa.cas.LockBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class LockBenchmark {
+
+    @Param({"synchronized", "reentrant", "reentrantFair", "mcs", "clh", "ticket"})
+    public String impl;
+
+    volatile int count;
+    ReentrantLock reentrant;
+    SpinLock spin;
+    final Object monitor = new Object();
+
+    final List<Ops> threads = new CopyOnWriteArrayList<>();
+
+    @Setup
+    public void setup() {
+        switch (impl) {
+            case "reentrant":
+                reentrant = new ReentrantLock();
+                break;
+            case "reentrantFair":
+                reentrant = new ReentrantLock(true);
+                break;
+            case "mcs":
+                spin = new MCSLock();
+                break;
+            case "clh":
+                spin = new CLHLock();
+                break;
+            case "ticket":
+                spin = new TicketLock();
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Operations completed by one thread in the current iteration.
+     */
+    @State(Scope.Thread)
+    public static class Ops {
+        long ops;
+
+        @Setup
+        public void register(LockBenchmark b) {
+            b.threads.add(this);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void fairness() {
+        double sum = 0.0, squares = 0.0;
+        long min = Long.MAX_VALUE, max = 0L;
+        for (Ops o : threads) {
+            sum += o.ops;
+            squares += (double) o.ops * o.ops;
+            min = Math.min(min, o.ops);
+            max = Math.max(max, o.ops);
+            o.ops = 0L;
+        }
+        if (squares > 0.0)
+            System.out.printf("%n%s: jain=%.3f, min=%d, max=%d over %d threads%n",
+                    impl, sum * sum / (threads.size() * squares), min, max, threads.size());
+    }
+
+    private boolean compareAndSwap(int expectCount, int newCount) {
+        if (count == expectCount) {
+            count = newCount;
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean request(Ops o) {
+        int expect = count;
+        boolean ok;
+        switch (impl) {
+            case "synchronized":
+                synchronized (monitor) {
+                    ok = compareAndSwap(expect, expect + 1);
+                }
+                break;
+            case "reentrant":
+            case "reentrantFair":
+                reentrant.lock();
+                try {
+                    ok = compareAndSwap(expect, expect + 1);
+                } finally {
+                    reentrant.unlock();
+                }
+                break;
+            default:
+                spin.lock();
+                try {
+                    ok = compareAndSwap(expect, expect + 1);
+                } finally {
+                    spin.unlock();
+                }
+        }
+        o.ops++;
+        return ok;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+            Options opt = new OptionsBuilder()
+                    .include(LockBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+}
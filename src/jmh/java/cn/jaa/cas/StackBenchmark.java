@@ -0,0 +1,124 @@
+package cn.jaa.cas;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: EliminationBackoffStack vs ConcurrentLinkedDeque vs synchronized ArrayDeque,
+ * 每个线程交替 push/pop, 线程数 1..64
+ * <pre>
+ *   java -cp target/benchmarks.jar cn.jaa.cas.StackBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class StackBenchmark {
+
+    @Param({"elimination", "clDeque", "syncArrayDeque"})
+    public String impl;
+
+    Stack stack;
+
+    interface Stack {
+        void push(Integer e);
+
+        Integer pop();
+
+        static Stack of(String impl) {
+            switch (impl) {
+                case "elimination":
+                    return new EliminationStack();
+                case "clDeque":
+                    return new ClDequeStack();
+                case "syncArrayDeque":
+                    return new SyncArrayDequeStack();
+                default:
+                    throw new IllegalArgumentException(impl);
+            }
+        }
+    }
+
+    static final class EliminationStack implements Stack {
+        final EliminationBackoffStack<Integer> s = new EliminationBackoffStack<>();
+
+        public void push(Integer e) {
+            s.push(e);
+        }
+
+        public Integer pop() {
+            return s.pop();
+        }
+    }
+
+    static final class ClDequeStack implements Stack {
+        final ConcurrentLinkedDeque<Integer> d = new ConcurrentLinkedDeque<>();
+
+        public void push(Integer e) {
+            d.offerFirst(e);
+        }
+
+        public Integer pop() {
+            return d.pollFirst();
+        }
+    }
+
+    static final class SyncArrayDequeStack implements Stack {
+        final ArrayDeque<Integer> d = new ArrayDeque<>();
+
+        public synchronized void push(Integer e) {
+            d.offerFirst(e);
+        }
+
+        public synchronized Integer pop() {
+            return d.pollFirst();
+        }
+    }
+
+    static final Integer ITEM = 42;
+
+    @Setup
+    public void setup() {
+        stack = Stack.of(impl);
+        for (int i = 0; i < 1024; i++)
+            stack.push(ITEM);
+    }
+
+    @Benchmark
+    public Integer pushPop() {
+        stack.push(ITEM);
+        return stack.pop();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads = 1; threads <= 64; threads <<= 1) {
+            Options opt = new OptionsBuilder()
+                    .include(StackBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+}
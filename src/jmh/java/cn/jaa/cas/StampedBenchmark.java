@@ -0,0 +1,105 @@
+package cn.jaa.cas;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicStampedReference;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 带版本号的 CAS: AtomicStampedReference&lt;Integer&gt; vs AtomicStampedInt vs StampedReference,
+ * 比较吞吐和每次操作分配的字节数 (gc.alloc.rate.norm)
+ * <p>
+ * {@code ref} 下两种引用实现都在预先创建好的对象之间切换, 只比较 Pair 的分配;
+ * {@code boxed} 下 AtomicStampedReference 每次 +1 都要装箱, 即 ABADemo02 的写法.
+ * <pre>
+ *   java -jar target/benchmarks.jar StampedBenchmark -t 1,4 -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class StampedBenchmark {
+
+    @Param({"boxed", "ref"})
+    public String values;
+
+    static final Object[] OBJECTS = new Object[256];
+
+    static {
+        for (int i = 0; i < OBJECTS.length; i++)
+            OBJECTS[i] = new Object();
+    }
+
+    AtomicStampedReference<Integer> boxed;
+    AtomicStampedReference<Object> jdkRef;
+    StampedReference<Object> ref;
+    AtomicStampedInt packed;
+
+    @Setup
+    public void setup() {
+        boxed = new AtomicStampedReference<>(1000, 0);
+        jdkRef = new AtomicStampedReference<>(OBJECTS[0], 0);
+        ref = new StampedReference<>(OBJECTS[0], 0);
+        packed = new AtomicStampedInt(1000, 0);
+    }
+
+    @State(Scope.Thread)
+    public static class Holder {
+        final int[] stamp = new int[1];
+        int i;
+    }
+
+    @Benchmark
+    public void atomicStampedReference(Holder h) {
+        int[] s = h.stamp;
+        if ("boxed".equals(values)) {
+            for (; ; ) {
+                Integer v = boxed.get(s);
+                if (boxed.compareAndSet(v, v + 1, s[0], s[0] + 1))
+                    return;
+            }
+        }
+        Object next = OBJECTS[++h.i & (OBJECTS.length - 1)];
+        for (; ; ) {
+            Object v = jdkRef.get(s);
+            if (jdkRef.compareAndSet(v, next, s[0], s[0] + 1))
+                return;
+        }
+    }
+
+    @Benchmark
+    public void stampedReference(Holder h) {
+        int[] s = h.stamp;
+        Object next = OBJECTS[++h.i & (OBJECTS.length - 1)];
+        for (; ; ) {
+            Object v = ref.get(s);
+            if (ref.compareAndSet(v, next, s[0], s[0] + 1))
+                return;
+        }
+    }
+
+    @Benchmark
+    public void atomicStampedInt(Holder h) {
+        int[] s = h.stamp;
+        for (; ; ) {
+            int v = packed.get(s);
+            if (packed.compareAndSet(v, v + 1, s[0], s[0] + 1))
+                return;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package cn.jaa.longadder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 缓存求和: 无写入时 sum 应为 O(1), add 的开销应与未开启时相差无几
+ * <pre>
+ *   java -jar target/benchmarks.jar CachedSumBenchmark.sumIdle
+ *   java -jar target/benchmarks.jar CachedSumBenchmark.add -t 8
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class CachedSumBenchmark {
+
+    @Param({"off", "on"})
+    public String cache;
+
+    LongAdder adder;
+
+    @Setup
+    public void setup() {
+        LongAdder.Builder builder = LongAdder.builder()
+                .initialStripes(64)
+                .maxStripes(64)
+                .presized();
+        if ("on".equals(cache))
+            builder.cacheSum();
+        adder = builder.build();
+        adder.add(42L);
+    }
+
+    @Benchmark
+    public long sumIdle() {
+        return adder.sum();
+    }
+
+    @Benchmark
+    public void add() {
+        adder.add(1L);
+    }
+}
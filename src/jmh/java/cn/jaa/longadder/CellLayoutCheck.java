@@ -0,0 +1,76 @@
+package cn.jaa.longadder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 校验 Striped64.Cell 的字段布局: value 前后各留出至少 128 字节的填充,
+ * 这样无论缓存行是 64 还是 128 字节, 相邻两个 Cell 的 value 都不会落在同一缓存行上
+ * <p>
+ * 这是一个手动工具, 构建本身不会运行它; 唯一的自动调用点是 CellPaddingBenchmark 的 padded 场景,
+ * 布局不满足时该基准在 setup 阶段直接失败, 不会给出一组没有意义的数字
+ * <p>
+ * 手动运行: java -cp target/benchmarks.jar cn.jaa.longadder.CellLayoutCheck
+ * 不满足时以非零状态码退出
+ */
+public class CellLayoutCheck {
+
+    static final int LINE = 128;
+
+    public static void main(String[] args) {
+        try {
+            verify();
+        } catch (IllegalStateException e) {
+            System.out.println("FAIL: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 校验 Cell 布局, 不满足时抛出 IllegalStateException
+     */
+    static void verify() {
+        sun.misc.Unsafe unsafe = unsafe();
+        long valueOffset;
+        try {
+            valueOffset = unsafe.objectFieldOffset(Striped64.CellValue.class.getDeclaredField("value"));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Striped64.CellValue has no value field", e);
+        }
+
+        // 对象头之后的第一个字段偏移, 以及最后一个字段的结束偏移
+        long first = Long.MAX_VALUE;
+        long end = 0;
+        for (Class<?> k = Striped64.Cell.class; k != Object.class; k = k.getSuperclass()) {
+            for (Field f : k.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers()))
+                    continue;
+                long off = unsafe.objectFieldOffset(f);
+                first = Math.min(first, off);
+                end = Math.max(end, off + 8);
+            }
+        }
+        long before = valueOffset - first;
+        long after = end - (valueOffset + 8);
+        System.out.println("Cell: header=" + first + " value@" + valueOffset
+                + " padding before=" + before + " after=" + after + " size>=" + end);
+
+        // Cell 按分配顺序在堆上紧挨着时, 两个 value 之间至少隔着 after + 对象头 + before 字节
+        if (before < LINE || after < LINE)
+            throw new IllegalStateException("value may share a cache line with a neighbouring Cell"
+                    + " (padding before=" + before + ", after=" + after + ", need " + LINE + ")");
+        System.out.println("OK: value is isolated on its own " + LINE + "-byte line");
+    }
+
+    static sun.misc.Unsafe unsafe() {
+        try {
+            Field f = sun.misc.Unsafe.class.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            return (sun.misc.Unsafe) f.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("sun.misc.Unsafe is not accessible", e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package cn.jaa.longadder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 填充后的 Striped64.Cell 与未填充 Cell 的伪共享对比
+ * <p>
+ * 每个线程只 CAS 自己下标的 Cell, 线程之间没有真正的数据竞争,
+ * 未填充时相邻 Cell 落在同一缓存行上, 吞吐会随线程数增加而明显下降
+ * <pre>
+ *   java -jar target/benchmarks.jar CellPaddingBenchmark -t 8
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+public class CellPaddingBenchmark {
+
+    static final int SLOTS = 256;
+
+    @Param({"padded", "unpadded"})
+    public String layout;
+
+    boolean usePadded;
+    Striped64.Cell[] padded;
+    UnpaddedCell[] unpadded;
+
+    @Setup
+    public void setup() {
+        usePadded = "padded".equals(layout);
+        if (usePadded)
+            CellLayoutCheck.verify();
+        // 同一线程连续分配, 对象在 TLAB 中按顺序紧挨着, 正是 cells 数组扩容后的典型布局
+        // 两种 Cell 必须各自在单独的循环里分配: 交替分配时相邻的 UnpaddedCell 之间会夹着一个
+        // 填充过的 Cell, 未填充的基线也就永远不会共享缓存行
+        padded = new Striped64.Cell[SLOTS];
+        for (int i = 0; i < SLOTS; i++)
+            padded[i] = new Striped64.Cell(0L);
+        unpadded = new UnpaddedCell[SLOTS];
+        for (int i = 0; i < SLOTS; i++)
+            unpadded[i] = new UnpaddedCell();
+    }
+
+    @State(Scope.Thread)
+    public static class Slot {
+        int index;
+
+        @Setup
+        public void setup(ThreadParams params) {
+            index = params.getThreadIndex() % SLOTS;
+        }
+    }
+
+    @Benchmark
+    public boolean cas(Slot slot) {
+        if (usePadded) {
+            Striped64.Cell c = padded[slot.index];
+            long v = c.value;
+            return c.cas(v, v + 1);
+        }
+        UnpaddedCell c = unpadded[slot.index];
+        long v = c.value;
+        return c.cas(v, v + 1);
+    }
+
+    /**
+     * Striped64.Cell 去掉填充后的样子
+     */
+    static final class UnpaddedCell {
+        volatile long value;
+
+        boolean cas(long cmp, long val) {
+            return VALUE.compareAndSet(this, cmp, val);
+        }
+
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(UnpaddedCell.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package cn.jaa.longadder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 竞争统计的开销: 未开启统计的 LongAdder.add 必须与原来一样快,
+ * 开启后在无竞争时也应看不出差别, 只有竞争时慢路径才多几次计数
+ * <pre>
+ *   java -jar target/benchmarks.jar ContentionStatsBenchmark -t 1
+ *   java -jar target/benchmarks.jar ContentionStatsBenchmark -t 8
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class ContentionStatsBenchmark {
+
+    @Param({"off", "on"})
+    public String stats;
+
+    LongAdder adder;
+
+    @Setup
+    public void setup() {
+        LongAdder.Builder builder = LongAdder.builder();
+        if ("on".equals(stats))
+            builder.recordContention();
+        adder = builder.build();
+    }
+
+    @Benchmark
+    public void add() {
+        adder.add(1L);
+    }
+}
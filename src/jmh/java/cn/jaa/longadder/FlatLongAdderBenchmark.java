@@ -0,0 +1,80 @@
+package cn.jaa.longadder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: Cell 对象数组 vs 平铺 long[]: 比较 sum() 延迟和满表时的内存占用
+ * <p>
+ * {@code sum} 在已经铺满 stripes 个 stripe 的累加器上求和; {@code footprint}
+ * 每次新建一个铺满的累加器, 用 gc profiler 的 gc.alloc.rate.norm (B/op)
+ * 读出一个累加器连同整张表的字节数.
+ * <pre>
+ *   java -jar target/benchmarks.jar FlatLongAdderBenchmark.sum
+ *   java -jar target/benchmarks.jar FlatLongAdderBenchmark.footprint -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class FlatLongAdderBenchmark {
+
+    @Param({"cells", "flat"})
+    public String impl;
+
+    @Param({"2", "8", "32", "128"})
+    public int stripes;
+
+    LongAdder cells;
+    FlatLongAdder flat;
+
+    @Setup
+    public void setup() {
+        cells = newCells();
+        flat = newFlat();
+        for (int i = 0; i < stripes; i++) {
+            cells.add(i);
+            flat.add(i);
+        }
+    }
+
+    private LongAdder newCells() {
+        return LongAdder.builder()
+                .initialStripes(stripes)
+                .maxStripes(stripes)
+                .presized()
+                .build();
+    }
+
+    private FlatLongAdder newFlat() {
+        FlatLongAdder a = new FlatLongAdder();
+        a.presize(stripes);
+        return a;
+    }
+
+    @Benchmark
+    public long sum() {
+        return "flat".equals(impl) ? flat.sum() : cells.sum();
+    }
+
+    @Benchmark
+    public Object footprint() {
+        return "flat".equals(impl) ? newFlat() : newCells();
+    }
+}
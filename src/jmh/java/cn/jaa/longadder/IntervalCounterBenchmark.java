@@ -0,0 +1,71 @@
+package cn.jaa.longadder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: IntervalCounter.add 与 LongAdder.add 的开销对比, 以及每毫秒上报一次时写线程的吞吐
+ * <pre>
+ *   java -jar target/benchmarks.jar IntervalCounterBenchmark.add -t 8
+ *   java -jar target/benchmarks.jar IntervalCounterBenchmark.reported
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class IntervalCounterBenchmark {
+
+    @Param({"adder", "interval"})
+    public String impl;
+
+    LongAdder adder;
+    IntervalCounter interval;
+
+    @Setup
+    public void setup() {
+        adder = new LongAdder();
+        interval = new IntervalCounter();
+    }
+
+    @Benchmark
+    public void add() {
+        if ("interval".equals(impl))
+            interval.add(1L);
+        else
+            adder.add(1L);
+    }
+
+    @Benchmark
+    @Group("reported")
+    @GroupThreads(7)
+    public void writer() {
+        add();
+    }
+
+    @Benchmark
+    @Group("reported")
+    @GroupThreads(1)
+    public long reporter() {
+        LockSupport.parkNanos(1_000_000L);
+        return "interval".equals(impl) ? interval.flip() : adder.sumThenReset();
+    }
+}
@@ -0,0 +1,286 @@
+package cn.jaa.longadder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: cn.jaa.longadder.LongAdder vs java.util.concurrent.atomic.LongAdder vs AtomicLong
+ * <p>
+ * 运行方式:
+ * <pre>
+ *   mvn -P jmh package
+ *   java -jar target/benchmarks.jar LongAdderBenchmark -t 8 -bm thrpt -tu s   # ops/sec
+ *   java -jar target/benchmarks.jar LongAdderBenchmark -t 8 -bm avgt -tu ns   # ns/op
+ *   java -cp target/benchmarks.jar cn.jaa.longadder.LongAdderBenchmark       # 1, 2, 4 .. 以及 NCPU, 2*NCPU 线程全量扫描
+ * </pre>
+ * mix_* 分组用来模拟不同的读写比例, 例如 mix_w3r1 表示每组 3 个线程 add, 1 个线程 sum
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LongAdderBenchmark {
+
+    /**
+     * striped: cn.jaa.longadder.LongAdder
+     * presized: cn.jaa.longadder.LongAdder, 一开始就按 2*NCPU 个 stripe 分配好
+     * jdk:     java.util.concurrent.atomic.LongAdder
+     * atomic:  java.util.concurrent.atomic.AtomicLong
+     */
+    @Param({"striped", "presized", "jdk", "atomic"})
+    public String impl;
+
+    Counter counter;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        counter = Counter.of(impl);
+        // 先制造一轮竞争, 让 cells 在测量开始前就已经初始化/扩容, 否则 sum 测的只是 base
+        inflate(counter);
+    }
+
+    @Benchmark
+    public void increment() {
+        counter.increment();
+    }
+
+    @Benchmark
+    public void add() {
+        counter.add(3L);
+    }
+
+    @Benchmark
+    public long sum() {
+        return counter.sum();
+    }
+
+    @Benchmark
+    public long sumThenReset() {
+        return counter.sumThenReset();
+    }
+
+    @Benchmark
+    @Group("mix_w1r1")
+    @GroupThreads(1)
+    public void mix_w1r1_add() {
+        counter.increment();
+    }
+
+    @Benchmark
+    @Group("mix_w1r1")
+    @GroupThreads(1)
+    public long mix_w1r1_sum() {
+        return counter.sum();
+    }
+
+    @Benchmark
+    @Group("mix_w3r1")
+    @GroupThreads(3)
+    public void mix_w3r1_add() {
+        counter.increment();
+    }
+
+    @Benchmark
+    @Group("mix_w3r1")
+    @GroupThreads(1)
+    public long mix_w3r1_sum() {
+        return counter.sum();
+    }
+
+    @Benchmark
+    @Group("mix_w1r3")
+    @GroupThreads(1)
+    public void mix_w1r3_add() {
+        counter.increment();
+    }
+
+    @Benchmark
+    @Group("mix_w1r3")
+    @GroupThreads(3)
+    public long mix_w1r3_sum() {
+        return counter.sum();
+    }
+
+    static void inflate(Counter counter) throws InterruptedException {
+        int threadCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+        List<Thread> list = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            list.add(new Thread(() -> {
+                for (int j = 0; j < 100_000; j++) {
+                    counter.increment();
+                }
+            }));
+        }
+        for (Thread thread : list) {
+            thread.start();
+        }
+        for (Thread thread : list) {
+            thread.join();
+        }
+        counter.sumThenReset();
+    }
+
+    /**
+     * 统一三种实现的调用方式. 每个 fork 只会加载其中一种实现, 调用点仍是单态的, 不会引入额外的虚调用开销
+     */
+    interface Counter {
+        void add(long x);
+
+        void increment();
+
+        long sum();
+
+        long sumThenReset();
+
+        static Counter of(String impl) {
+            switch (impl) {
+                case "striped":
+                    return new StripedCounter(new LongAdder());
+                case "presized":
+                    int stripes = 2 * Runtime.getRuntime().availableProcessors();
+                    return new StripedCounter(LongAdder.builder()
+                            .initialStripes(stripes)
+                            .maxStripes(stripes)
+                            .presized()
+                            .build());
+                case "jdk":
+                    return new JdkCounter();
+                case "atomic":
+                    return new AtomicCounter();
+                default:
+                    throw new IllegalArgumentException("unknown impl: " + impl);
+            }
+        }
+    }
+
+    static final class StripedCounter implements Counter {
+        final LongAdder adder;
+
+        StripedCounter(LongAdder adder) {
+            this.adder = adder;
+        }
+
+        public void add(long x) {
+            adder.add(x);
+        }
+
+        public void increment() {
+            adder.increment();
+        }
+
+        public long sum() {
+            return adder.sum();
+        }
+
+        public long sumThenReset() {
+            return adder.sumThenReset();
+        }
+    }
+
+    static final class JdkCounter implements Counter {
+        final java.util.concurrent.atomic.LongAdder adder = new java.util.concurrent.atomic.LongAdder();
+
+        public void add(long x) {
+            adder.add(x);
+        }
+
+        public void increment() {
+            adder.increment();
+        }
+
+        public long sum() {
+            return adder.sum();
+        }
+
+        public long sumThenReset() {
+            return adder.sumThenReset();
+        }
+    }
+
+    static final class AtomicCounter implements Counter {
+        final AtomicLong atomic = new AtomicLong();
+
+        public void add(long x) {
+            atomic.addAndGet(x);
+        }
+
+        public void increment() {
+            atomic.incrementAndGet();
+        }
+
+        public long sum() {
+            return atomic.get();
+        }
+
+        public long sumThenReset() {
+            return atomic.getAndSet(0L);
+        }
+    }
+
+    /**
+     * 按 1, 2, 4 ... 个线程, 再加上 NCPU 和 2*NCPU 个线程依次运行单操作基准,
+     * 并以同样的组数运行读写混合基准, 同时输出 ops/sec 和 ns/op
+     */
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : threadCounts(Runtime.getRuntime().availableProcessors())) {
+            run(threads, Mode.Throughput, TimeUnit.SECONDS);
+            run(threads, Mode.AverageTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 2 的幂次直到 2*ncpu, 再显式加入 ncpu 和 2*ncpu: ncpu 不是 2 的幂时倍增序列会跳过这两个点
+     */
+    static int[] threadCounts(int ncpu) {
+        TreeSet<Integer> counts = new TreeSet<>();
+        for (int threads = 1; threads <= 2 * ncpu; threads <<= 1)
+            counts.add(threads);
+        counts.add(ncpu);
+        counts.add(2 * ncpu);
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void run(int threads, Mode mode, TimeUnit unit) throws RunnerException {
+        String name = LongAdderBenchmark.class.getSimpleName();
+        Options single = new OptionsBuilder()
+                .include(name + "\\.(increment|add|sum|sumThenReset)$")
+                .threads(threads)
+                .mode(mode)
+                .timeUnit(unit)
+                .build();
+        new Runner(single).run();
+
+        Options mixed = new OptionsBuilder()
+                .include(name + "\\.mix_")
+                .threadGroups(threads)
+                .mode(mode)
+                .timeUnit(unit)
+                .build();
+        new Runner(mixed).run();
+    }
+}
@@ -0,0 +1,72 @@
+package cn.jaa.longadder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 四个独立计数器 (count/sum/min/max) 与 LongSummaryAccumulator 每个事件的写入开销
+ * <pre>
+ *   java -jar target/benchmarks.jar LongSummaryBenchmark -t 1,4,8
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class LongSummaryBenchmark {
+
+    @Param({"four", "summary"})
+    public String impl;
+
+    LongAdder count;
+    LongAdder sum;
+    LongAccumulator min;
+    LongAccumulator max;
+    LongSummaryAccumulator summary;
+
+    @Setup
+    public void setup() {
+        count = new LongAdder();
+        sum = new LongAdder();
+        min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        summary = new LongSummaryAccumulator();
+    }
+
+    @State(Scope.Thread)
+    public static class Values {
+        long next;
+
+        long next() {
+            return (next = next * 6364136223846793005L + 1442695040888963407L) >>> 44;
+        }
+    }
+
+    @Benchmark
+    public void accept(Values v) {
+        long x = v.next();
+        if ("summary".equals(impl)) {
+            summary.accept(x);
+        } else {
+            count.increment();
+            sum.add(x);
+            min.accumulate(x);
+            max.accumulate(x);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package cn.jaa.longadder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 不同探针来源在 add() 热路径上的开销
+ * <p>
+ * threadField: Thread.threadLocalRandomProbe, 需要 --add-opens java.base/java.lang
+ * localProbe:  Striped64.LocalProbe, 不需要任何 JVM 参数
+ * <p>
+ * 探针来源在 Striped64 类初始化时确定, 所以两组基准分别跑在参数不同的 fork 里
+ * <pre>
+ *   java -jar target/benchmarks.jar ProbeBenchmark -t 4
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+public class ProbeBenchmark {
+
+    final LongAdder adder = new LongAdder();
+
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = {"--add-opens", "java.base/java.lang=ALL-UNNAMED"})
+    public void threadField_add() {
+        adder.increment();
+    }
+
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = {"--add-opens", "java.base/java.lang=ALL-UNNAMED"})
+    public int threadField_getProbe() {
+        return Striped64.getProbe();
+    }
+
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = "-Dcn.jaa.longadder.probe=local")
+    public void localProbe_add() {
+        adder.increment();
+    }
+
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = "-Dcn.jaa.longadder.probe=local")
+    public int localProbe_getProbe() {
+        return Striped64.getProbe();
+    }
+}
@@ -0,0 +1,58 @@
+package cn.jaa.longadder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: SlidingWindowCounter.increment 与 LongAdder.increment 的开销对比, 以及 100 桶的窗口查询
+ * <pre>
+ *   java -jar target/benchmarks.jar SlidingWindowBenchmark.increment -t 8
+ *   java -jar target/benchmarks.jar SlidingWindowBenchmark.rate
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class SlidingWindowBenchmark {
+
+    @Param({"adder", "window"})
+    public String impl;
+
+    LongAdder adder;
+    SlidingWindowCounter window;
+
+    @Setup
+    public void setup() {
+        adder = new LongAdder();
+        window = new SlidingWindowCounter(10, TimeUnit.SECONDS, 100);
+    }
+
+    @Benchmark
+    public void increment() {
+        if ("window".equals(impl))
+            window.increment();
+        else
+            adder.increment();
+    }
+
+    @Benchmark
+    public double rate() {
+        return window.ratePerSecond();
+    }
+}
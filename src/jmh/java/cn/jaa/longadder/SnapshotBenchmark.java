@@ -0,0 +1,95 @@
+package cn.jaa.longadder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 读者以 1 kHz 取一致快照时写线程的吞吐
+ * <p>
+ * {@code sum}: 普通 LongAdder.sum, 不一致, 作为上限;
+ * {@code locked}: 写者持读锁、读者持写锁的 LongAdder, 即现在的做法;
+ * {@code snapshot}: SnapshotLongAdder.snapshot.
+ * <pre>
+ *   java -jar target/benchmarks.jar SnapshotBenchmark
+ * </pre>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class SnapshotBenchmark {
+
+    @Param({"sum", "locked", "snapshot"})
+    public String impl;
+
+    LongAdder adder;
+    ReentrantReadWriteLock lock;
+    SnapshotLongAdder snapshots;
+
+    @Setup
+    public void setup() {
+        adder = new LongAdder();
+        lock = new ReentrantReadWriteLock();
+        snapshots = new SnapshotLongAdder();
+    }
+
+    @Benchmark
+    @Group("snapshot1kHz")
+    @GroupThreads(7)
+    public void writer() {
+        switch (impl) {
+            case "snapshot":
+                snapshots.increment();
+                break;
+            case "locked":
+                lock.readLock().lock();
+                try {
+                    adder.increment();
+                } finally {
+                    lock.readLock().unlock();
+                }
+                break;
+            default:
+                adder.increment();
+        }
+    }
+
+    @Benchmark
+    @Group("snapshot1kHz")
+    @GroupThreads(1)
+    public long reader() {
+        LockSupport.parkNanos(1_000_000L);
+        switch (impl) {
+            case "snapshot":
+                return snapshots.snapshot();
+            case "locked":
+                lock.writeLock().lock();
+                try {
+                    return adder.sum();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            default:
+                return adder.sum();
+        }
+    }
+}
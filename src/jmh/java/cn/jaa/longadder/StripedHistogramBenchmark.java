@@ -0,0 +1,73 @@
+package cn.jaa.longadder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: StripedHistogram.record 在多线程下的吞吐, 以及取快照的耗时
+ * <pre>
+ *   java -jar target/benchmarks.jar StripedHistogramBenchmark.record -t 1,4,8,16 -prof gc
+ *   java -jar target/benchmarks.jar StripedHistogramBenchmark.snapshot
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class StripedHistogramBenchmark {
+
+    StripedHistogram histogram;
+
+    @Setup
+    public void setup() {
+        histogram = new StripedHistogram();
+    }
+
+    /**
+     * Latencies drawn per thread, so that threads mostly hit the same
+     * few buckets, as real request latencies do.
+     */
+    @State(Scope.Thread)
+    public static class Latencies {
+        final long[] values = new long[1024];
+        int i;
+
+        @Setup
+        public void setup() {
+            ThreadLocalRandom r = ThreadLocalRandom.current();
+            for (int k = 0; k < values.length; k++)
+                values[k] = 200_000L + (long) (r.nextGaussian() * 20_000.0);
+        }
+
+        long next() {
+            return values[i++ & (values.length - 1)];
+        }
+    }
+
+    @Benchmark
+    public void record(Latencies l) {
+        histogram.record(Math.max(0L, l.next()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public StripedHistogram.Snapshot snapshot() {
+        return histogram.snapshot();
+    }
+}
@@ -0,0 +1,61 @@
+package cn.jaa.parallel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 按账户加锁: 分段数从 1 (相当于一把全局锁) 到 256 时的吞吐
+ * <pre>
+ *   java -jar target/benchmarks.jar StripedLocksBenchmark -t 1,4,8,16
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class StripedLocksBenchmark {
+
+    static final int ACCOUNTS = 10_000;
+
+    @Param({"1", "16", "256"})
+    public int stripes;
+
+    StripedLocks<Lock> locks;
+    final long[] balances = new long[ACCOUNTS];
+
+    @Setup
+    public void setup() {
+        locks = StripedLocks.lock(stripes);
+    }
+
+    @Benchmark
+    public void update() {
+        int account = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+        Lock l = locks.get(account);
+        l.lock();
+        try {
+            balances[account]++;
+            Blackhole.consumeCPU(50);
+        } finally {
+            l.unlock();
+        }
+    }
+}
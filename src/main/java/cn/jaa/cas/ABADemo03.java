@@ -0,0 +1,51 @@
+package cn.jaa.cas;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 使用AtomicStampedInt解决ABA问题, 值和版本号打包在一个long里, 不装箱也不分配Pair
+ */
+public class ABADemo03 {
+
+    public static AtomicStampedInt a = new AtomicStampedInt(1, 1);
+
+    public static void main(String[] args) {
+        Thread main = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                System.out.println("操作线程：" + Thread.currentThread().getName() + ", 初始值: " + a.getValue());
+                try {
+                    int[] stampHolder = new int[1];
+                    int expectValue = a.get(stampHolder);
+                    int newValue = expectValue + 1;
+                    int expectStamp = stampHolder[0];
+                    int newStamp = expectStamp + 1;
+                    Thread.sleep(1000); // 主线程休眠1秒，让出cpu
+
+                    boolean isCASSuccess = a.compareAndSet(expectValue, newValue, expectStamp, newStamp);
+                    System.out.println("操作线程：" + Thread.currentThread().getName() + ", CAS操作: " + isCASSuccess);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "主线程");
+
+        Thread other = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(20); // 确保Thread-main优先执行
+                    a.addAndIncrementStamp(1); // a+1, a=2
+                    System.out.println("操作线程：" + Thread.currentThread().getName() + ", 【increment】，a = " + a.getValue());
+                    a.addAndIncrementStamp(-1); // a-1, a=1
+                    System.out.println("操作线程：" + Thread.currentThread().getName() + ", 【decrement】，a = " + a.getValue());
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "干扰线程");
+
+        main.start();
+        other.start();
+    }
+}
@@ -0,0 +1,146 @@
+package cn.jaa.cas;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 带版本号的 int 原子变量: 值和版本号打包进一个 long, 一次 CAS 同时比较两者, 不产生任何对象
+ * <p>
+ * An {@code int} value paired with an {@code int} stamp, both held in
+ * one {@code long} and updated together by a single CAS. It solves the
+ * ABA problem the way {@link java.util.concurrent.atomic.AtomicStampedReference}
+ * does, without boxing the value or allocating a new pair on every
+ * successful update.
+ */
+public class AtomicStampedInt {
+
+    /**
+     * Stamp in the high 32 bits, value in the low 32 bits.
+     */
+    private volatile long word;
+
+    /**
+     * Creates a new {@code AtomicStampedInt} with the given initial
+     * value and stamp.
+     *
+     * @param initialValue the initial value
+     * @param initialStamp the initial stamp
+     */
+    public AtomicStampedInt(int initialValue, int initialStamp) {
+        word = pack(initialValue, initialStamp);
+    }
+
+    static long pack(int value, int stamp) {
+        return ((long) stamp << 32) | (value & 0xffffffffL);
+    }
+
+    static int valueOf(long w) {
+        return (int) w;
+    }
+
+    static int stampOf(long w) {
+        return (int) (w >>> 32);
+    }
+
+    /**
+     * Returns the current value.
+     */
+    public int getValue() {
+        return valueOf(word);
+    }
+
+    /**
+     * Returns the current stamp.
+     */
+    public int getStamp() {
+        return stampOf(word);
+    }
+
+    /**
+     * Returns the current value and stores the stamp read with it in
+     * {@code stampHolder[0]}; both come from the same read.
+     *
+     * @param stampHolder an array of size of at least one
+     * @return the current value
+     */
+    public int get(int[] stampHolder) {
+        long w = word;
+        stampHolder[0] = stampOf(w);
+        return valueOf(w);
+    }
+
+    /**
+     * Atomically sets the value and stamp to the given update values
+     * if the current value and stamp are equal to the expected ones.
+     *
+     * @param expectedValue the expected value
+     * @param newValue      the new value
+     * @param expectedStamp the expected stamp
+     * @param newStamp      the new stamp
+     * @return {@code true} if successful
+     */
+    public boolean compareAndSet(int expectedValue, int newValue,
+                                 int expectedStamp, int newStamp) {
+        return WORD.compareAndSet(this, pack(expectedValue, expectedStamp),
+                pack(newValue, newStamp));
+    }
+
+    /**
+     * Unconditionally sets both the value and the stamp.
+     *
+     * @param newValue the new value
+     * @param newStamp the new stamp
+     */
+    public void set(int newValue, int newStamp) {
+        word = pack(newValue, newStamp);
+    }
+
+    /**
+     * Atomically sets the stamp to the given update value if the
+     * current value is equal to the expected value. May fail
+     * spuriously if the stamp changes concurrently.
+     *
+     * @param expectedValue the expected value
+     * @param newStamp      the new stamp
+     * @return {@code true} if successful
+     */
+    public boolean attemptStamp(int expectedValue, int newStamp) {
+        long w = word;
+        return valueOf(w) == expectedValue
+                && WORD.compareAndSet(this, w, pack(expectedValue, newStamp));
+    }
+
+    /**
+     * Atomically adds delta to the value and increments the stamp.
+     *
+     * @param delta the value to add
+     * @return the updated value
+     */
+    public int addAndIncrementStamp(int delta) {
+        for (; ; ) {
+            long w = word;
+            int v = valueOf(w) + delta;
+            if (WORD.compareAndSet(this, w, pack(v, stampOf(w) + 1)))
+                return v;
+        }
+    }
+
+    public String toString() {
+        long w = word;
+        return "[value=" + valueOf(w) + ", stamp=" + stampOf(w) + "]";
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle WORD;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            WORD = l.findVarHandle(AtomicStampedInt.class, "word", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
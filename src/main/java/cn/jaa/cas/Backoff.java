@@ -0,0 +1,160 @@
+package cn.jaa.cas;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: CAS 重试循环的退避策略: 不退避 / 自旋提示 / 带抖动的有界指数退避 / 先自旋再让出再挂起
+ * <p>
+ * What a CAS retry loop does between a failed attempt and the next
+ * one. A loop counts its consecutive failures and passes the count in,
+ * so policies keep no per-thread state and allocate nothing:
+ * <pre>
+ *   Backoff backoff = Backoff.exponential(4, 1024);
+ *   for (int attempt = 1; !compareAndSwap(expect = getCount(), expect + 1); attempt++)
+ *       backoff.backoff(attempt);
+ * </pre>
+ * Spinning at full speed is cheapest when the holder of the contended
+ * word is running on another core, and most harmful when it is not,
+ * as on oversubscribed hosts: the spinner burns the time slice the
+ * other thread needs. The policies here trade retry latency for CPU.
+ */
+@FunctionalInterface
+public interface Backoff {
+
+    /**
+     * Waits before retrying.
+     *
+     * @param attempt the number of consecutive failed attempts so far,
+     *                starting at 1
+     */
+    void backoff(int attempt);
+
+    /**
+     * Retries immediately.
+     */
+    static Backoff none() {
+        return None.INSTANCE;
+    }
+
+    /**
+     * Calls {@link Thread#onSpinWait} once per failure.
+     */
+    static Backoff spin() {
+        return Spin.INSTANCE;
+    }
+
+    /**
+     * Spins for a random number of {@link Thread#onSpinWait} rounds
+     * between 1 and {@code min(maxSpins, minSpins * 2^(attempt-1))}.
+     * The randomness keeps threads that failed together from retrying
+     * together.
+     *
+     * @param minSpins the bound after the first failure
+     * @param maxSpins the largest bound
+     * @throws IllegalArgumentException unless 0 &lt; minSpins &lt;= maxSpins
+     */
+    static Backoff exponential(int minSpins, int maxSpins) {
+        if (minSpins <= 0 || maxSpins < minSpins)
+            throw new IllegalArgumentException("need 0 < minSpins <= maxSpins");
+        return new Exponential(minSpins, maxSpins);
+    }
+
+    /**
+     * Spins for the first {@code spins} failures, then yields for the
+     * next {@code yields}, then parks for {@code parkNanos} on every
+     * further failure.
+     *
+     * @param spins     failures answered with {@link Thread#onSpinWait}
+     * @param yields    further failures answered with {@link Thread#yield}
+     * @param parkNanos park time after that
+     * @throws IllegalArgumentException if an argument is negative
+     *                                  or parkNanos is zero
+     */
+    static Backoff spinYieldPark(int spins, int yields, long parkNanos) {
+        if (spins < 0 || yields < 0 || parkNanos <= 0L)
+            throw new IllegalArgumentException("need spins, yields >= 0 and parkNanos > 0");
+        return new SpinYieldPark(spins, yields, parkNanos);
+    }
+
+    final class None implements Backoff {
+        static final None INSTANCE = new None();
+
+        private None() {
+        }
+
+        @Override
+        public void backoff(int attempt) {
+        }
+
+        public String toString() {
+            return "none";
+        }
+    }
+
+    final class Spin implements Backoff {
+        static final Spin INSTANCE = new Spin();
+
+        private Spin() {
+        }
+
+        @Override
+        public void backoff(int attempt) {
+            Thread.onSpinWait();
+        }
+
+        public String toString() {
+            return "spin";
+        }
+    }
+
+    final class Exponential implements Backoff {
+        private final int minSpins;
+        private final int maxSpins;
+
+        Exponential(int minSpins, int maxSpins) {
+            this.minSpins = minSpins;
+            this.maxSpins = maxSpins;
+        }
+
+        @Override
+        public void backoff(int attempt) {
+            int shift = Math.min(Math.max(attempt - 1, 0), 30);
+            long bound = Math.min((long) maxSpins, (long) minSpins << shift);
+            for (int i = ThreadLocalRandom.current().nextInt((int) bound) + 1; i > 0; i--)
+                Thread.onSpinWait();
+        }
+
+        public String toString() {
+            return "exponential(" + minSpins + ", " + maxSpins + ")";
+        }
+    }
+
+    final class SpinYieldPark implements Backoff {
+        private final int spins;
+        private final int yields;
+        private final long parkNanos;
+
+        SpinYieldPark(int spins, int yields, long parkNanos) {
+            this.spins = spins;
+            this.yields = yields;
+            this.parkNanos = parkNanos;
+        }
+
+        @Override
+        public void backoff(int attempt) {
+            if (attempt <= spins)
+                Thread.onSpinWait();
+            else if (attempt - spins <= yields)
+                Thread.yield();
+            else
+                LockSupport.parkNanos(this, parkNanos);
+        }
+
+        public String toString() {
+            return "spinYieldPark(" + spins + ", " + yields + ", " + parkNanos + ")";
+        }
+    }
+}
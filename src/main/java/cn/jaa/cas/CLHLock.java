@@ -0,0 +1,95 @@
+package cn.jaa.cas;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: CLH 队列自旋锁: 每个线程在前驱的节点上自旋, 释放时只改自己的节点
+ * <p>
+ * Craig, Landin and Hagersten's queue lock. A thread swaps its node
+ * into the tail and spins on its predecessor's node until the
+ * predecessor clears its flag on unlock. Each node has exactly one
+ * spinner, so a release touches one waiter's cache line. Unlike
+ * {@link MCSLock}, unlock never waits for a successor to link in; the
+ * releasing thread then takes over its predecessor's node, which no
+ * one else refers to any more, for its next acquisition.
+ */
+public class CLHLock implements SpinLock {
+
+    static final class Node {
+        volatile boolean locked;
+    }
+
+    private volatile Node tail = new Node();
+
+    private final ThreadLocal<Node> myNode = ThreadLocal.withInitial(Node::new);
+    private final ThreadLocal<Node> myPred = new ThreadLocal<>();
+
+    private final Backoff backoff;
+
+    /**
+     * Creates a lock whose waiters use {@link SpinLock#DEFAULT_BACKOFF}.
+     */
+    public CLHLock() {
+        this(DEFAULT_BACKOFF);
+    }
+
+    /**
+     * Creates a lock whose waiters call the given policy between
+     * checks of the lock.
+     *
+     * @param backoff the policy
+     * @throws NullPointerException if {@code backoff} is null
+     */
+    public CLHLock(Backoff backoff) {
+        if (backoff == null)
+            throw new NullPointerException();
+        this.backoff = backoff;
+    }
+
+    @Override
+    public void lock() {
+        Node node = myNode.get();
+        node.locked = true;
+        Node pred = (Node) TAIL.getAndSet(this, node);
+        myPred.set(pred);
+        // 在前驱的节点上自旋
+        for (int attempt = 1; pred.locked; attempt++)
+            backoff.backoff(attempt);
+    }
+
+    @Override
+    public boolean tryLock() {
+        Node pred = tail;
+        if (pred.locked)
+            return false;
+        Node node = myNode.get();
+        node.locked = true;
+        if (!TAIL.compareAndSet(this, pred, node))
+            return false;
+        myPred.set(pred);
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+        Node node = myNode.get();
+        node.locked = false;
+        // 自己的节点留给后继自旋, 下次改用前驱的节点
+        myNode.set(myPred.get());
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            TAIL = l.findVarHandle(CLHLock.class, "tail", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
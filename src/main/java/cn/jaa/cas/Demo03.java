@@ -13,6 +13,9 @@ public class Demo03 {
     // 总访问量
     volatile static int count = 0;
 
+    // CAS 失败后的退避策略, 可换成 Backoff.none() / spin() / spinYieldPark(...)
+    static Backoff backoff = Backoff.exponential(4, 1024);
+
     /**
      * Q: 耗时太长的原因是什么？
      * A: 程序中的request方法使用了synchronized关键字修饰，保证并发的情况下，request方法同一时刻只允许
@@ -53,12 +56,17 @@ public class Demo03 {
          */
         // count++;
         int expectCount; // 期望值
-        while (!compareAndSwap((expectCount = getCount()), expectCount + 1)) {
-
+        // 失败后按退避策略等待再重试, 而不是全速空转; attempt 是连续失败的次数
+        for (int attempt = 1; !compareAndSwap((expectCount = getCount()), expectCount + 1); attempt++) {
+            backoff.backoff(attempt);
         }
     }
 
     /**
+     * Q: 为什么不换成 MCSLock / CLHLock 这类公平的队列锁?
+     * A: request() 在锁外读取期望值, 排队期间 count 已被前面的线程改掉, 轮到自己时 CAS 失败,
+     *    只能重新排到队尾. synchronized 允许刚来的线程插队, 读到的期望值往往还是新的.
+     *    实测这个演示换成 MCSLock 要慢约 30 倍, 几种锁的对比见 LockBenchmark
      *
      * @param expectCount 期望值count
      * @param newCount    需要给count赋值的新值
@@ -0,0 +1,61 @@
+package cn.jaa.cas;
+
+import cn.jaa.longadder.SlidingWindowCounter;
+import cn.jaa.longadder.StripedHistogram;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 用滑动窗口计数器统计 request() 的实时 QPS, 用分段直方图统计每秒的延迟分位数
+ */
+public class Demo04 {
+
+    // 最近 1 秒的访问量, 按 100ms 分桶
+    static SlidingWindowCounter qps = new SlidingWindowCounter(1, TimeUnit.SECONDS, 10);
+
+    // request() 的耗时分布, 单位纳秒
+    static StripedHistogram latency = new StripedHistogram();
+
+    // 模拟访问的方法
+    public static void request() throws InterruptedException {
+        long start = System.nanoTime();
+        TimeUnit.MILLISECONDS.sleep(5);
+        qps.increment();
+        latency.record(System.nanoTime() - start);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threadSize = 100;
+        CountDownLatch countDownLatch = new CountDownLatch(threadSize);
+
+        for (int i = 0; i < threadSize; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    // 模拟用户行为,每个用户访问1000次, 大约持续5秒
+                    try {
+                        for (int j = 0; j < 1000; j++) {
+                            request();
+                        }
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    } finally {
+                        countDownLatch.countDown();
+                    }
+                }
+            });
+            thread.start();
+        }
+        // 主线程每秒看一次窗口, 不需要额外的定时线程去轮转分桶
+        while (!countDownLatch.await(1, TimeUnit.SECONDS)) {
+            StripedHistogram.Snapshot s = latency.snapshotThenReset();
+            System.out.println(Thread.currentThread().getName() + ", QPS = " + (long) qps.ratePerSecond()
+                    + ", p50 = " + TimeUnit.NANOSECONDS.toMicros(s.percentile(50.0)) + "us"
+                    + ", p99 = " + TimeUnit.NANOSECONDS.toMicros(s.percentile(99.0)) + "us"
+                    + ", p999 = " + TimeUnit.NANOSECONDS.toMicros(s.percentile(99.9)) + "us");
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package cn.jaa.cas;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 无锁 Treiber 栈, 竞争时 push 和 pop 在消除数组里直接配对, 不再争抢栈顶
+ * <p>
+ * A lock-free LIFO stack. The stack itself is a Treiber stack: a
+ * linked list whose head is swung by CAS. It is safe from the ABA
+ * problem shown in {@link ABADemo}: every push allocates a fresh node,
+ * and the garbage collector does not recycle a node while any thread
+ * still holds a reference to it, so a head that reads the same twice
+ * really is the same, unchanged node.
+ * <p>
+ * Under contention a failed CAS on the head does not retry right away.
+ * The thread goes to a random slot of an elimination array instead. A
+ * pusher parks its node there for a short spin; a popper that finds a
+ * node takes it with a CAS. Such a push and pop cancel out, as if one
+ * had immediately followed the other on the stack, without either
+ * touching the head. Slots are 64 bytes apart so that threads
+ * eliminating in different slots do not share a cache line.
+ *
+ * @param <E> the type of elements held in this stack
+ */
+public class EliminationBackoffStack<E> {
+
+    static final class Node<E> {
+        final E item;
+        Node<E> next;
+
+        Node(E item) {
+            this.item = item;
+        }
+    }
+
+    /**
+     * Array elements between two slots: 64 bytes even without
+     * compressed references.
+     */
+    private static final int SLOT_STRIDE = 8;
+
+    /**
+     * How long a pusher waits in a slot for a popper, in spin rounds.
+     */
+    private static final int ELIMINATION_SPINS = 128;
+
+    private volatile Node<E> head;
+
+    /**
+     * Elimination slots, at indices (i + 1) * SLOT_STRIDE.
+     */
+    private final Object[] slots;
+    private final int slotCount;
+
+    /**
+     * Creates an empty stack with one elimination slot per two CPUs.
+     */
+    public EliminationBackoffStack() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Creates an empty stack with the given number of elimination
+     * slots.
+     *
+     * @param eliminationSlots the number of slots
+     * @throws IllegalArgumentException if {@code eliminationSlots} is not positive
+     */
+    public EliminationBackoffStack(int eliminationSlots) {
+        if (eliminationSlots <= 0)
+            throw new IllegalArgumentException("eliminationSlots must be positive");
+        slotCount = eliminationSlots;
+        slots = new Object[(eliminationSlots + 2) * SLOT_STRIDE];
+    }
+
+    /**
+     * Pushes an element onto the stack.
+     *
+     * @param e the element
+     * @throws NullPointerException if {@code e} is null
+     */
+    public void push(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        Node<E> node = new Node<>(e);
+        for (; ; ) {
+            Node<E> h = head;
+            node.next = h;
+            if (HEAD.compareAndSet(this, h, node))
+                return;
+            if (eliminatePush(node))
+                return;
+        }
+    }
+
+    /**
+     * Removes and returns the top element.
+     *
+     * @return the top element, or {@code null} if the stack is empty
+     */
+    public E pop() {
+        for (; ; ) {
+            Node<E> h = head;
+            if (h == null)
+                return null;
+            if (HEAD.compareAndSet(this, h, h.next))
+                return h.item;
+            E e = eliminatePop();
+            if (e != null)
+                return e;
+        }
+    }
+
+    /**
+     * Returns the top element without removing it.
+     *
+     * @return the top element, or {@code null} if the stack is empty
+     */
+    public E peek() {
+        Node<E> h = head;
+        return h == null ? null : h.item;
+    }
+
+    /**
+     * Returns {@code true} if the stack holds no elements.
+     */
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    private int randomSlot() {
+        return (ThreadLocalRandom.current().nextInt(slotCount) + 1) * SLOT_STRIDE;
+    }
+
+    /**
+     * Offers node to a popper through a random slot.
+     *
+     * @return true if a popper took it
+     */
+    private boolean eliminatePush(Node<E> node) {
+        int i = randomSlot();
+        if (!SLOTS.compareAndSet(slots, i, null, node))
+            return false;                    // 槽位被占, 回去重试栈顶
+        for (int spins = 0; spins < ELIMINATION_SPINS; spins++) {
+            if (SLOTS.getVolatile(slots, i) != node)
+                return true;                 // 已被 pop 取走
+            Thread.onSpinWait();
+        }
+        // 等不到 pop 就撤回; 撤回失败说明刚好被取走
+        return !SLOTS.compareAndSet(slots, i, node, null);
+    }
+
+    /**
+     * Takes a node a pusher left in a random slot.
+     *
+     * @return its element, or null if none was found
+     */
+    @SuppressWarnings("unchecked")
+    private E eliminatePop() {
+        int i = randomSlot();
+        Object n = SLOTS.getVolatile(slots, i);
+        if (n != null && SLOTS.compareAndSet(slots, i, n, null))
+            return ((Node<E>) n).item;
+        return null;
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle HEAD;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            HEAD = l.findVarHandle(EliminationBackoffStack.class, "head", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
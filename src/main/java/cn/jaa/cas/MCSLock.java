@@ -0,0 +1,101 @@
+package cn.jaa.cas;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: MCS 队列自旋锁: 等待者排成链表, 每个线程只在自己的节点上自旋
+ * <p>
+ * Mellor-Crummey and Scott's queue lock. A thread appends its node to
+ * the tail of a queue with one atomic swap and, unless the queue was
+ * empty, links itself behind its predecessor and spins on a flag in
+ * its own node. Unlock hands the lock to the successor by clearing
+ * that flag: one write to one waiter's cache line, however many
+ * threads wait. Waiters are served in arrival order.
+ */
+public class MCSLock implements SpinLock {
+
+    static final class Node {
+        volatile boolean locked;
+        volatile Node next;
+    }
+
+    private volatile Node tail;
+
+    /**
+     * Each thread's queue node, reused across acquisitions.
+     */
+    private final ThreadLocal<Node> myNode = ThreadLocal.withInitial(Node::new);
+
+    private final Backoff backoff;
+
+    /**
+     * Creates a lock whose waiters use {@link SpinLock#DEFAULT_BACKOFF}.
+     */
+    public MCSLock() {
+        this(DEFAULT_BACKOFF);
+    }
+
+    /**
+     * Creates a lock whose waiters call the given policy between
+     * checks of the lock.
+     *
+     * @param backoff the policy
+     * @throws NullPointerException if {@code backoff} is null
+     */
+    public MCSLock(Backoff backoff) {
+        if (backoff == null)
+            throw new NullPointerException();
+        this.backoff = backoff;
+    }
+
+    @Override
+    public void lock() {
+        Node node = myNode.get();
+        node.next = null;
+        node.locked = true;
+        Node pred = (Node) TAIL.getAndSet(this, node);
+        if (pred != null) {
+            pred.next = node;
+            // 只在自己的节点上自旋, 前驱释放时会把 locked 置为 false
+            for (int attempt = 1; node.locked; attempt++)
+                backoff.backoff(attempt);
+        }
+    }
+
+    @Override
+    public boolean tryLock() {
+        Node node = myNode.get();
+        node.next = null;
+        node.locked = false;
+        return TAIL.compareAndSet(this, null, node);
+    }
+
+    @Override
+    public void unlock() {
+        Node node = myNode.get();
+        Node succ = node.next;
+        if (succ == null) {
+            // 没有后继: 把 tail 从自己改回 null 即释放; 失败说明有线程正在入队
+            if (TAIL.compareAndSet(this, node, null))
+                return;
+            for (int attempt = 1; (succ = node.next) == null; attempt++)
+                backoff.backoff(attempt);
+        }
+        succ.locked = false;
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            TAIL = l.findVarHandle(MCSLock.class, "tail", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package cn.jaa.cas;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 用 CAS 实现的自旋锁的公共接口: MCS 锁, CLH 锁和票据锁
+ * <p>
+ * A non-reentrant mutual exclusion lock whose waiters spin instead of
+ * parking. Meant for critical sections of a few instructions; for the
+ * compare-then-assign of {@link Demo03} a monitor turned out faster,
+ * see {@code LockBenchmark}. A thread must not call {@link #lock}
+ * while already holding the same lock, and must call {@link #unlock}
+ * only while holding it. Between checks a waiter calls a
+ * {@link Backoff} with its count of failed checks; the implementations
+ * take one in their constructor and default to
+ * {@link #DEFAULT_BACKOFF}.
+ */
+public interface SpinLock {
+
+    /**
+     * Spins while the holder can run at the same time on another CPU,
+     * then yields, then parks briefly: by then the holder or the next
+     * waiter in line has most likely been descheduled, and only gets
+     * the CPU back if we give it up. A single CPU skips the spinning.
+     */
+    Backoff DEFAULT_BACKOFF = Runtime.getRuntime().availableProcessors() > 1
+            ? Backoff.spinYieldPark(1 << 12, 64, 20_000L)
+            : Backoff.spinYieldPark(0, 16, 20_000L);
+
+    /**
+     * Acquires the lock, spinning until it is available.
+     */
+    void lock();
+
+    /**
+     * Acquires the lock only if it is free right now.
+     *
+     * @return {@code true} if the lock was acquired
+     */
+    boolean tryLock();
+
+    /**
+     * Releases the lock.
+     */
+    void unlock();
+
+}
@@ -0,0 +1,184 @@
+package cn.jaa.cas;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 不分配 Pair 的带版本号引用: 引用和版本号分开存放, 用一个带锁位的序列字保证一起更新
+ * <p>
+ * A reference paired with an {@code int} stamp, with the contract of
+ * {@link java.util.concurrent.atomic.AtomicStampedReference} but
+ * without allocating a new holder on every successful update. A
+ * reference and a stamp cannot share one CAS, so both are guarded by
+ * a sequence word: the stamp in the high 32 bits, a 31-bit write
+ * version and a lock bit below it. A writer first checks the stamp
+ * and reference, then sets the lock bit with a CAS, stores the
+ * reference, and releases with a new word carrying the new stamp and
+ * the next version. Readers never lock: they read the word, the
+ * reference and the word again, and retry if it changed or was locked.
+ * <p>
+ * The lock is held only for a single reference store, so writers that
+ * meet it spin briefly instead of parking. Unlike
+ * {@code AtomicStampedReference}, this class is not lock-free in the
+ * strict sense: a writer descheduled while holding the lock delays
+ * everyone else until it runs again.
+ *
+ * @param <V> the type of object referred to by this reference
+ */
+public class StampedReference<V> {
+
+    private static final long LOCKED = 1L;
+    private static final long VERSION_MASK = 0xfffffffeL;
+
+    private volatile V reference;
+
+    /**
+     * Stamp in the high 32 bits, then a 31-bit version, then the lock bit.
+     */
+    private volatile long word;
+
+    /**
+     * Creates a new {@code StampedReference} with the given initial
+     * values.
+     *
+     * @param initialRef   the initial reference
+     * @param initialStamp the initial stamp
+     */
+    public StampedReference(V initialRef, int initialStamp) {
+        reference = initialRef;
+        word = (long) initialStamp << 32;
+    }
+
+    private static int stampOf(long w) {
+        return (int) (w >>> 32);
+    }
+
+    /**
+     * Returns the unlocked word following w with the given stamp.
+     */
+    private static long next(long w, int newStamp) {
+        return ((long) newStamp << 32) | ((w + 2L) & VERSION_MASK);
+    }
+
+    /**
+     * Returns a current word with the lock bit clear.
+     */
+    private long stableWord() {
+        long w;
+        while (((w = word) & LOCKED) != 0L)
+            Thread.onSpinWait();
+        return w;
+    }
+
+    /**
+     * Returns the current value of the reference.
+     */
+    public V getReference() {
+        return reference;
+    }
+
+    /**
+     * Returns the current value of the stamp.
+     */
+    public int getStamp() {
+        return stampOf(stableWord());
+    }
+
+    /**
+     * Returns the current values of both the reference and the stamp,
+     * as one consistent pair. Typical usage is
+     * {@code int[1] holder; ref = v.get(holder); }.
+     *
+     * @param stampHolder an array of size of at least one
+     * @return the current value of the reference
+     */
+    public V get(int[] stampHolder) {
+        for (; ; ) {
+            long w = stableWord();
+            V r = reference;
+            // 读完引用后再确认序列字没变, 否则说明中间有写入, 重读
+            if (word == w) {
+                stampHolder[0] = stampOf(w);
+                return r;
+            }
+        }
+    }
+
+    /**
+     * Atomically sets the value of both the reference and stamp to
+     * the given update values if the current reference is {@code ==}
+     * to the expected reference and the current stamp is equal to the
+     * expected stamp.
+     *
+     * @param expectedReference the expected value of the reference
+     * @param newReference      the new value for the reference
+     * @param expectedStamp     the expected value of the stamp
+     * @param newStamp          the new value for the stamp
+     * @return {@code true} if successful
+     */
+    public boolean compareAndSet(V expectedReference, V newReference,
+                                 int expectedStamp, int newStamp) {
+        for (; ; ) {
+            long w = stableWord();
+            if (stampOf(w) != expectedStamp || reference != expectedReference)
+                return false;
+            if (!WORD.compareAndSet(this, w, w | LOCKED))
+                continue;   // 被别的写者抢先, 重新比较
+            // 加锁后引用不会再变; 加锁前读到的引用与 w 是一致的
+            reference = newReference;
+            WORD.setRelease(this, next(w, newStamp));
+            return true;
+        }
+    }
+
+    /**
+     * Unconditionally sets the value of both the reference and stamp.
+     *
+     * @param newReference the new value for the reference
+     * @param newStamp     the new value for the stamp
+     */
+    public void set(V newReference, int newStamp) {
+        for (; ; ) {
+            long w = stableWord();
+            if (WORD.compareAndSet(this, w, w | LOCKED)) {
+                reference = newReference;
+                WORD.setRelease(this, next(w, newStamp));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Atomically sets the value of the stamp to the given update value
+     * if the current reference is {@code ==} to the expected
+     * reference.
+     *
+     * @param expectedReference the expected value of the reference
+     * @param newStamp          the new value for the stamp
+     * @return {@code true} if successful
+     */
+    public boolean attemptStamp(V expectedReference, int newStamp) {
+        for (; ; ) {
+            long w = stableWord();
+            if (reference != expectedReference)
+                return false;
+            // 引用不变, 只需一次 CAS 换掉序列字
+            if (WORD.compareAndSet(this, w, next(w, newStamp)))
+                return true;
+        }
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle WORD;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            WORD = l.findVarHandle(StampedReference.class, "word", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package cn.jaa.cas;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 票据锁: 先取号再等叫号, 公平但所有等待者都在同一个变量上自旋
+ * <p>
+ * A thread takes the next ticket with one atomic increment and spins
+ * until {@code serving} reaches it; unlock advances {@code serving}.
+ * Strictly first-come first-served like the queue locks, but every
+ * waiter spins on the same field, so each release invalidates that
+ * line in every waiter's cache. Included as the baseline the queue
+ * locks improve on.
+ */
+public class TicketLock implements SpinLock {
+
+    private volatile int next;
+    private volatile int serving;
+
+    private final Backoff backoff;
+
+    /**
+     * Creates a lock whose waiters use {@link SpinLock#DEFAULT_BACKOFF}.
+     */
+    public TicketLock() {
+        this(DEFAULT_BACKOFF);
+    }
+
+    /**
+     * Creates a lock whose waiters call the given policy between
+     * checks of the lock.
+     *
+     * @param backoff the policy
+     * @throws NullPointerException if {@code backoff} is null
+     */
+    public TicketLock(Backoff backoff) {
+        if (backoff == null)
+            throw new NullPointerException();
+        this.backoff = backoff;
+    }
+
+    @Override
+    public void lock() {
+        int ticket = (int) NEXT.getAndAdd(this, 1);
+        for (int attempt = 1; serving != ticket; attempt++)
+            backoff.backoff(attempt);
+    }
+
+    @Override
+    public boolean tryLock() {
+        int s = serving;
+        return next == s && NEXT.compareAndSet(this, s, s + 1);
+    }
+
+    @Override
+    public void unlock() {
+        // 只有持锁线程写 serving, 不需要 CAS
+        SERVING.setRelease(this, serving + 1);
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle NEXT;
+    private static final VarHandle SERVING;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            NEXT = l.findVarHandle(TicketLock.class, "next", int.class);
+            SERVING = l.findVarHandle(TicketLock.class, "serving", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package cn.jaa.longadder;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 先在线程本地缓冲, 攒够阈值再写入 Striped64 cells 的累加器
+ * <p>
+ * A {@link LongAdder} fronted by one buffer per updating thread.
+ * {@link #add} only touches the calling thread's buffer (a plain read,
+ * a release store and a volatile read of the drained mark) until the
+ * buffered amount reaches {@code threshold} in magnitude; the buffer is
+ * then flushed into the striped cells with a single
+ * {@code LongAdder.add}. With a threshold of 1000, a thread performing
+ * a million increments per second issues about a thousand shared
+ * writes per second instead of a million.
+ * <p>
+ * {@link #flushAll} drains every buffer into the cells from the calling
+ * thread, without waiting for the owners to update again: an owner only
+ * publishes a running total, and whichever of the owner or a flusher
+ * first claims the difference to what was already drained moves it into
+ * the cells. {@link #flushEvery} runs it on a time tick from a shared
+ * daemon thread, so the buffers of threads that have gone quiet reach
+ * the cells too; callers that already have a reporting tick can call
+ * {@code flushAll} from it instead.
+ * <p>
+ * Buffers are padded like Striped64's cells, and the owner's running
+ * total and the drained mark each sit on their own line, so neither
+ * other owners nor a flusher disturb an owner's line on every add.
+ * <p><b>Error bounds.</b>
+ * <ul>
+ * <li>{@link #sum} reads the cells, then the buffers, and does not
+ * flush. A flush that completes between the two reads is seen in
+ * neither, so a call may miss, per thread flushing concurrently with
+ * it, less than {@code threshold} plus that thread's latest
+ * {@code x}; it never counts an amount twice. Without concurrent
+ * flushes it is exact apart from concurrent updates, like
+ * {@code LongAdder.sum}.</li>
+ * <li>Between ticks the striped cells, and therefore
+ * {@link #sumThenReset}, lag the true sum by at most
+ * {@code (threshold - 1)} per thread that has updated this adder, in
+ * either direction. Every update that happened-before a
+ * {@code flushAll} call, including those of threads that have since
+ * gone idle or died, is in the cells when it returns, unless the owner
+ * or another flusher claimed it first and is still adding it; so with
+ * {@code flushEvery(T)}, a buffered update reaches the cells within
+ * about {@code T}.</li>
+ * </ul>
+ */
+public class BufferedLongAdder extends Number {
+    private static final long serialVersionUID = 5157893549036702212L;
+
+    /**
+     * Running total of a buffer, laid out after Striped64's left-hand
+     * cell padding.
+     */
+    abstract static class BufferProduced extends Striped64.CellLhsPadding {
+        long produced;
+    }
+
+    /**
+     * Keeps the drained mark, which flushers write, off the line of the
+     * running total, which the owner writes.
+     */
+    @SuppressWarnings("unused")
+    abstract static class BufferMidPadding extends BufferProduced {
+        long m00, m01, m02, m03, m04, m05, m06, m07;
+        long m08, m09, m10, m11, m12, m13, m14, m15;
+    }
+
+    abstract static class BufferDrained extends BufferMidPadding {
+        volatile long drained;
+    }
+
+    @SuppressWarnings("unused")
+    abstract static class BufferRhsPadding extends BufferDrained {
+        long q00, q01, q02, q03, q04, q05, q06, q07;
+        long q08, q09, q10, q11, q12, q13, q14, q15;
+    }
+
+    /**
+     * A thread's updates. produced is the running total of everything
+     * the owner has added, written only by the owner with release
+     * stores. drained is the part of it already moved into the cells,
+     * advanced by CAS by the owner or a flusher; the winner of the CAS
+     * adds the difference to the cells, so each amount moves once.
+     */
+    static final class Buffer extends BufferRhsPadding {
+        final Thread owner;
+
+        Buffer(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * Calls flushAll on an adder until it is stopped or the adder is
+     * collected. Holds the adder weakly, so a forgotten schedule does
+     * not keep it alive.
+     */
+    static final class Tick implements Runnable {
+        final WeakReference<BufferedLongAdder> adder;
+        volatile ScheduledFuture<?> future;
+
+        Tick(BufferedLongAdder adder) {
+            this.adder = new WeakReference<>(adder);
+        }
+
+        @Override
+        public void run() {
+            BufferedLongAdder a = adder.get();
+            if (a != null)
+                a.flushAll();
+            else {
+                ScheduledFuture<?> f = future;
+                if (f != null)
+                    f.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * The daemon thread running every adder's flushEvery schedule,
+     * started on first use.
+     */
+    static final class Ticker {
+        static final ScheduledThreadPoolExecutor EXECUTOR = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "buffered-long-adder-flush");
+            t.setDaemon(true);
+            return t;
+        });
+
+        static {
+            // 停掉的调度立即出队, 不在队列里堆积到下一个周期
+            EXECUTOR.setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    private final long threshold;
+
+    private final LongAdder cells = new LongAdder();
+
+    private final transient ThreadLocal<Buffer> local = ThreadLocal.withInitial(this::register);
+
+    /**
+     * Buffers of threads that were alive when last checked. Replaced
+     * (copy-on-write) under lock.
+     */
+    private transient volatile Buffer[] buffers = new Buffer[0];
+
+    private final transient Object lock = new Object();
+
+    private transient Tick tick; // guarded by lock
+
+    /**
+     * Creates a new adder with initial sum of zero.
+     *
+     * @param threshold buffered amount, in magnitude, at which a thread
+     *                  flushes into the shared cells
+     * @throws IllegalArgumentException if {@code threshold} is not positive
+     */
+    public BufferedLongAdder(long threshold) {
+        if (threshold <= 0L)
+            throw new IllegalArgumentException("threshold must be positive");
+        this.threshold = threshold;
+    }
+
+    /**
+     * Adds the given value.
+     *
+     * @param x the value to add
+     */
+    public void add(long x) {
+        Buffer b = local.get();
+        long p = b.produced + x;
+        PRODUCED.setRelease(b, p);
+        long d = b.drained;
+        // CAS 失败说明 flushAll 刚把这部分取走了, 剩下的量不到阈值, 留到下次即可
+        if ((p - d >= threshold || p - d <= -threshold) && DRAINED.compareAndSet(b, d, p))
+            cells.add(p - d);
+    }
+
+    /**
+     * Equivalent to {@code add(1)}.
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Equivalent to {@code add(-1)}.
+     */
+    public void decrement() {
+        add(-1L);
+    }
+
+    /**
+     * Returns the current sum, including buffered updates. The
+     * returned value is <em>NOT</em> an atomic snapshot; updates and
+     * flushes concurrent with the call might not be incorporated (see
+     * the class comment for the bound), but none is counted twice.
+     *
+     * @return the sum
+     */
+    public long sum() {
+        // 先读 cells 再读缓冲: 排空时先推进 drained 再写 cells, 读到 cells 里的量时
+        // 一定也能读到推进后的 drained, 同一笔值不会被算两次; 反过来的顺序会重复计数.
+        // 代价是两次读之间完成的排空两边都看不到, 见类注释里的误差上界
+        long sum = cells.sum();
+        for (Buffer b : buffers) {
+            long d = b.drained;
+            sum += (long) PRODUCED.getAcquire(b) - d;
+        }
+        return sum;
+    }
+
+    /**
+     * Moves every thread's buffered updates into the striped cells, and
+     * drops the buffers of threads that have died. Updates that
+     * happened-before this call are in the cells when it returns, unless
+     * a concurrent flush claimed them first.
+     */
+    public void flushAll() {
+        boolean dead = false;
+        for (Buffer b : buffers) {
+            drain(b);
+            dead |= !b.owner.isAlive();
+        }
+        if (dead) {
+            synchronized (lock) {
+                reapLocked();
+            }
+        }
+    }
+
+    /**
+     * Starts calling {@link #flushAll} at the given rate from a shared
+     * daemon thread, replacing any previous schedule. A period of zero
+     * stops flushing. The schedule ends by itself once this adder is
+     * no longer reachable.
+     *
+     * @param period time between flushes
+     * @param unit   the unit of period
+     * @throws IllegalArgumentException if {@code period} is negative
+     */
+    public void flushEvery(long period, TimeUnit unit) {
+        if (period < 0L)
+            throw new IllegalArgumentException("negative period: " + period);
+        synchronized (lock) {
+            if (tick != null) {
+                tick.future.cancel(false);
+                tick = null;
+            }
+            if (period == 0L)
+                return;
+            Tick t = new Tick(this);
+            t.future = Ticker.EXECUTOR.scheduleAtFixedRate(t, period, period, unit);
+            tick = t;
+        }
+    }
+
+    /**
+     * Claims what b's owner has published beyond the drained mark and
+     * adds it to the cells.
+     */
+    private void drain(Buffer b) {
+        for (; ; ) {
+            long d = b.drained;
+            long p = (long) PRODUCED.getAcquire(b);
+            if (p == d)
+                return;
+            if (DRAINED.compareAndSet(b, d, p)) {
+                cells.add(p - d);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the flushed part of the sum and resets it to zero. Updates
+     * still buffered are left for a later call; see the class comment
+     * for the bound on how much that can be. Call {@link #flushAll}
+     * first if the buffered part should be included.
+     *
+     * @return the flushed sum
+     */
+    public long sumThenReset() {
+        return cells.sumThenReset();
+    }
+
+    private Buffer register() {
+        Buffer b = new Buffer(Thread.currentThread());
+        synchronized (lock) {
+            Buffer[] bs = reapLocked();
+            bs = Arrays.copyOf(bs, bs.length + 1);
+            bs[bs.length - 1] = b;
+            buffers = bs;
+        }
+        return b;
+    }
+
+    /**
+     * Flushes and drops the buffers of dead threads. Thread.isAlive()
+     * returning false happens-after the thread's last update.
+     *
+     * @return the buffers left
+     */
+    private Buffer[] reapLocked() {
+        Buffer[] bs = buffers;
+        int live = 0;
+        Buffer[] kept = new Buffer[bs.length];
+        for (Buffer b : bs) {
+            if (b.owner.isAlive())
+                kept[live++] = b;
+            else
+                drain(b);
+        }
+        if (live == bs.length)
+            return bs;
+        kept = Arrays.copyOf(kept, live);
+        buffers = kept;
+        return kept;
+    }
+
+    /**
+     * Returns the String representation of the {@link #sum}.
+     *
+     * @return the String representation of the {@link #sum}
+     */
+    public String toString() {
+        return Long.toString(sum());
+    }
+
+    /**
+     * Equivalent to {@link #sum}.
+     *
+     * @return the sum
+     */
+    public long longValue() {
+        return sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as an {@code int} after a narrowing
+     * primitive conversion.
+     */
+    public int intValue() {
+        return (int) sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as a {@code float}
+     * after a widening primitive conversion.
+     */
+    public float floatValue() {
+        return (float) sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as a {@code double} after a widening
+     * primitive conversion.
+     */
+    public double doubleValue() {
+        return (double) sum();
+    }
+
+    /**
+     * Serialization proxy; keeps the threshold and the current sum.
+     *
+     * @serial include
+     */
+    private static class SerializationProxy implements java.io.Serializable {
+        private static final long serialVersionUID = 5157893549036702212L;
+
+        /**
+         * @serial
+         */
+        private final long threshold;
+
+        /**
+         * The current value returned by sum().
+         *
+         * @serial
+         */
+        private final long value;
+
+        SerializationProxy(BufferedLongAdder a) {
+            threshold = a.threshold;
+            value = a.sum();
+        }
+
+        private Object readResolve() {
+            BufferedLongAdder a = new BufferedLongAdder(threshold);
+            a.cells.add(value);
+            return a;
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    /**
+     * @param s the stream
+     * @throws java.io.InvalidObjectException always
+     */
+    private void readObject(java.io.ObjectInputStream s)
+            throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("Proxy required");
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle PRODUCED;
+    private static final VarHandle DRAINED;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            PRODUCED = l.findVarHandle(BufferProduced.class, "produced", long.class);
+            DRAINED = l.findVarHandle(BufferDrained.class, "drained", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package cn.jaa.longadder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: Striped64 慢路径上的竞争统计
+ * <p>
+ * Counts the contention events seen by one adder: failed CASes on the
+ * base and on cells, probe rehashes, table initializations and
+ * expansions, and failures to take the cellsBusy lock. Events are only
+ * recorded from {@code Striped64.longAccumulate}/{@code doubleAccumulate},
+ * i.e. after an uncontended update has already failed, so an adder
+ * built with {@link LongAdder.Builder#recordContention()} costs the
+ * same as any other adder until it is contended.
+ * <p>
+ * Every event is also added to the process-wide {@link #aggregate()},
+ * which is registered as the MXBean
+ * {@code cn.jaa.longadder:type=ContentionStats,name=aggregate} when the
+ * first recording adder is created. Individual adders can be
+ * registered with {@link #register(String)}.
+ */
+public final class ContentionStats implements ContentionStatsMXBean {
+
+    private static final String DOMAIN = "cn.jaa.longadder";
+
+    // 计数器本身用不带统计的 LongAdder, 不会递归
+    private final LongAdder baseCasFailures = new LongAdder();
+    private final LongAdder cellCasFailures = new LongAdder();
+    private final LongAdder rehashes = new LongAdder();
+    private final LongAdder tableInitializations = new LongAdder();
+    private final LongAdder tableExpansions = new LongAdder();
+    private final LongAdder cellsBusyFailures = new LongAdder();
+
+    /**
+     * Where every event is also counted, or null for the aggregate itself.
+     */
+    private final ContentionStats parent;
+
+    private ContentionStats(ContentionStats parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Creates stats for one adder, feeding the aggregate.
+     */
+    static ContentionStats newInstance() {
+        return new ContentionStats(Aggregate.INSTANCE);
+    }
+
+    /**
+     * Returns the totals over all adders that record contention.
+     *
+     * @return the process-wide stats
+     */
+    public static ContentionStats aggregate() {
+        return Aggregate.INSTANCE;
+    }
+
+    /**
+     * Registers these stats with the platform MBean server under
+     * {@code cn.jaa.longadder:type=ContentionStats,name=<name>}.
+     *
+     * @param name the value of the {@code name} key
+     * @return the name the MXBean was registered under
+     * @throws IllegalStateException if registration fails, for example
+     *                               because the name is already taken
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=ContentionStats,name="
+                    + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register contention stats " + name, e);
+        }
+    }
+
+    void baseCasFailed() {
+        baseCasFailures.increment();
+        if (parent != null)
+            parent.baseCasFailed();
+    }
+
+    void cellCasFailed() {
+        cellCasFailures.increment();
+        if (parent != null)
+            parent.cellCasFailed();
+    }
+
+    void rehashed() {
+        rehashes.increment();
+        if (parent != null)
+            parent.rehashed();
+    }
+
+    void tableInitialized() {
+        tableInitializations.increment();
+        if (parent != null)
+            parent.tableInitialized();
+    }
+
+    void tableExpanded() {
+        tableExpansions.increment();
+        if (parent != null)
+            parent.tableExpanded();
+    }
+
+    void cellsBusyFailed() {
+        cellsBusyFailures.increment();
+        if (parent != null)
+            parent.cellsBusyFailed();
+    }
+
+    @Override
+    public long getBaseCasFailures() {
+        return baseCasFailures.sum();
+    }
+
+    @Override
+    public long getCellCasFailures() {
+        return cellCasFailures.sum();
+    }
+
+    @Override
+    public long getRehashes() {
+        return rehashes.sum();
+    }
+
+    @Override
+    public long getTableInitializations() {
+        return tableInitializations.sum();
+    }
+
+    @Override
+    public long getTableExpansions() {
+        return tableExpansions.sum();
+    }
+
+    @Override
+    public long getCellsBusyFailures() {
+        return cellsBusyFailures.sum();
+    }
+
+    public String toString() {
+        return "ContentionStats[baseCasFailures=" + getBaseCasFailures()
+                + ", cellCasFailures=" + getCellCasFailures()
+                + ", rehashes=" + getRehashes()
+                + ", tableInitializations=" + getTableInitializations()
+                + ", tableExpansions=" + getTableExpansions()
+                + ", cellsBusyFailures=" + getCellsBusyFailures() + "]";
+    }
+
+    /**
+     * Holder for the aggregate, so that it is only created and
+     * registered once some adder records contention.
+     */
+    private static final class Aggregate {
+        static final ContentionStats INSTANCE = new ContentionStats(null);
+
+        static {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(INSTANCE,
+                        new ObjectName(DOMAIN + ":type=ContentionStats,name=aggregate"));
+            } catch (InstanceAlreadyExistsException e) {
+                // 同一 MBeanServer 里已有同名 MXBean (例如被另一个 ClassLoader 加载过), 忽略
+            } catch (JMException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package cn.jaa.longadder;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: Striped64 竞争统计的 JMX 视图, 见 {@link ContentionStats}
+ */
+public interface ContentionStatsMXBean {
+
+    /**
+     * @return failed CASes on the base field
+     */
+    long getBaseCasFailures();
+
+    /**
+     * @return failed CASes on a cell
+     */
+    long getCellCasFailures();
+
+    /**
+     * @return probe advances after a collision
+     */
+    long getRehashes();
+
+    /**
+     * @return cell tables created on first contention
+     */
+    long getTableInitializations();
+
+    /**
+     * @return cell table doublings
+     */
+    long getTableExpansions();
+
+    /**
+     * @return attempts to take the cellsBusy lock that found it held
+     */
+    long getCellsBusyFailures();
+}
@@ -0,0 +1,184 @@
+package cn.jaa.longadder;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 堆外分配大量分段计数器的区域, 支持显式释放和槽位复用
+ * <p>
+ * Hands out striped counters from one direct {@link ByteBuffer}
+ * allocated up front, for callers that keep counters per key in the
+ * millions. A {@link LongAdder} costs an object header, a Cell array
+ * and padded Cells on the heap once contended; a counter here costs
+ * {@code stripes * 8} bytes off the heap and nothing the collector has
+ * to trace.
+ * <pre>
+ *   CounterArena arena = new CounterArena(1 &lt;&lt; 20);
+ *   int id = arena.allocate();
+ *   arena.add(id, 1L);
+ *   long n = arena.sum(id);
+ *   arena.free(id);
+ * </pre>
+ * Counters are addressed by int id; the id-based methods allocate
+ * nothing. {@link #counter} wraps an id in an {@link OffHeapCounter}
+ * handle for code that wants a {@code LongAdder}-like object.
+ * {@link #free} zeroes the slot and puts it on a free list for reuse
+ * by a later {@link #allocate}; freeing an id twice, or one never
+ * allocated, is detected and rejected, but using an id after freeing
+ * it is a bug and may corrupt another counter.
+ */
+public class CounterArena {
+
+    private final StripedBuffer table;
+
+    /**
+     * Free slot ids, used as a stack. Guarded by this.
+     */
+    private final int[] free;
+    private int freeCount;
+
+    /**
+     * Ids currently allocated. Guarded by this.
+     */
+    private final BitSet allocated = new BitSet();
+
+    /**
+     * Next never-used slot. Guarded by this.
+     */
+    private int next;
+
+    /**
+     * Creates an arena of the given number of counters, each with one
+     * stripe per CPU rounded up to a power of two.
+     *
+     * @param capacity maximum number of live counters
+     */
+    public CounterArena(int capacity) {
+        this(capacity, Striped64.DEFAULT_MAX_CELLS);
+    }
+
+    /**
+     * Creates an arena of the given number of counters and stripes per
+     * counter, rounded up to a power of two.
+     *
+     * @param capacity maximum number of live counters
+     * @param stripes  stripes per counter
+     * @throws IllegalArgumentException if either argument is not
+     *                                  positive or the arena would exceed 2GB
+     */
+    public CounterArena(int capacity, int stripes) {
+        if (capacity <= 0 || stripes <= 0)
+            throw new IllegalArgumentException("capacity and stripes must be positive");
+        int n = Striped64.tableSizeFor(stripes);
+        long size = (long) capacity * n > Integer.MAX_VALUE ? Long.MAX_VALUE
+                : StripedBuffer.regionSize(capacity, n);
+        if (size > Integer.MAX_VALUE - StripedBuffer.SLOT)
+            throw new IllegalArgumentException("arena too large: " + capacity + " counters of "
+                    + n + " stripes exceed 2GB");
+        // 多分配 8 字节, 保证切片起点按 long 对齐, VarHandle 的原子操作需要对齐
+        ByteBuffer buf = ByteBuffer.allocateDirect((int) size + StripedBuffer.SLOT)
+                .alignedSlice(StripedBuffer.SLOT);
+        this.table = new StripedBuffer(buf, 0, capacity, n);
+        this.free = new int[capacity];
+    }
+
+    /**
+     * Returns the maximum number of live counters.
+     */
+    public int capacity() {
+        return table.capacity;
+    }
+
+    /**
+     * Returns the number of stripes per counter.
+     */
+    public int stripes() {
+        return table.stripes;
+    }
+
+    /**
+     * Returns the number of counters currently allocated.
+     */
+    public synchronized int size() {
+        return next - freeCount;
+    }
+
+    /**
+     * Allocates a counter with value zero.
+     *
+     * @return the counter id
+     * @throws IllegalStateException if the arena is full
+     */
+    public synchronized int allocate() {
+        int id;
+        if (freeCount > 0)
+            id = free[--freeCount];
+        else if (next == table.capacity)
+            throw new IllegalStateException("arena full: " + table.capacity + " counters");
+        else
+            id = next++;
+        allocated.set(id);
+        return id;
+    }
+
+    /**
+     * Releases a counter for reuse. Must not race with updates to it.
+     *
+     * @param id the counter id
+     * @throws IndexOutOfBoundsException if id is outside the arena
+     * @throws IllegalStateException     if id is not currently allocated,
+     *                                   for example because it was already freed
+     */
+    public synchronized void free(int id) {
+        if (id < 0 || id >= table.capacity)
+            throw new IndexOutOfBoundsException("counter " + id + " of " + table.capacity);
+        // 重复释放会让同一个 id 在空闲栈里出现两次, 之后被分给两个调用方
+        if (!allocated.get(id))
+            throw new IllegalStateException("counter " + id + " is not allocated");
+        allocated.clear(id);
+        table.reset(id);
+        free[freeCount++] = id;
+    }
+
+    /**
+     * Returns a handle on the given counter.
+     *
+     * @param id the counter id
+     */
+    public OffHeapCounter counter(int id) {
+        if (id < 0 || id >= table.capacity)
+            throw new IndexOutOfBoundsException("counter " + id + " of " + table.capacity);
+        return new OffHeapCounter(table, id);
+    }
+
+    /**
+     * Adds x to counter id.
+     */
+    public void add(int id, long x) {
+        table.add(id, x);
+    }
+
+    /**
+     * Equivalent to {@code add(id, 1)}.
+     */
+    public void increment(int id) {
+        table.add(id, 1L);
+    }
+
+    /**
+     * Returns the current sum of counter id; see {@link LongAdder#sum}.
+     */
+    public long sum(int id) {
+        return table.sum(id);
+    }
+
+    /**
+     * Returns the current sum of counter id and clears it, without
+     * losing concurrent updates.
+     */
+    public long sumThenReset(int id) {
+        return table.sumThenReset(id);
+    }
+}
@@ -0,0 +1,275 @@
+package cn.jaa.longadder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 映射到文件的分段计数器, 进程重启后数值还在
+ * <p>
+ * A fixed set of striped counters kept in a memory-mapped file.
+ * Updates are plain atomic operations on the mapped pages, exactly as
+ * in {@link CounterArena}; there is no serialization step, and
+ * reopening the file after a restart only maps it again, so counters
+ * come back in constant time whatever their number.
+ * <pre>
+ *   try (CounterFile file = CounterFile.open(Paths.get("counters.dat"), 1024)) {
+ *       file.checkpointEvery(1, TimeUnit.SECONDS);
+ *       OffHeapCounter requests = file.counter(0);
+ *       requests.increment();
+ *   }
+ * </pre>
+ * The operating system writes dirty pages back on its own schedule,
+ * and they survive a crash of the JVM, though not of the machine.
+ * {@link #force} flushes them synchronously; {@link #checkpointEvery}
+ * does so from a background thread, bounding what a power loss can
+ * cost without adding anything to the update path.
+ * <p>
+ * File layout: a 64-byte header (magic, version, capacity, stripes),
+ * then a {@link StripedBuffer} region. Creation and validation of the
+ * header happen under a file lock, so processes opening a new file at
+ * the same time initialize it once. Values are stored in native
+ * byte order; a file written on a machine of the other endianness is
+ * rejected by the magic check.
+ */
+public class CounterFile implements Closeable {
+
+    static final long MAGIC = 0x4a41414354525331L; // "JAACTRS1"
+    static final int VERSION = 2; // 2: 条带块按 128 字节填充
+    static final int HEADER_SIZE = 64;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int STRIPES_OFFSET = 16;
+
+    private final Path path;
+    private final MappedByteBuffer buf;
+    private final StripedBuffer table;
+    private ScheduledExecutorService checkpointer; // guarded by this
+
+    private CounterFile(Path path, MappedByteBuffer buf, int capacity, int stripes) {
+        this.path = path;
+        this.buf = buf;
+        this.table = new StripedBuffer(buf, HEADER_SIZE, capacity, stripes);
+    }
+
+    /**
+     * Opens the counter file at the given path, creating it with the
+     * given capacity and one stripe per CPU if it does not exist. The
+     * stripe count of an existing file is kept as is.
+     *
+     * @param path     the file
+     * @param capacity number of counters for a new file; an existing
+     *                 file must have at least this many
+     * @return the open file
+     * @throws IOException if the file cannot be mapped or is not a
+     *                     counter file of sufficient capacity
+     */
+    public static CounterFile open(Path path, int capacity) throws IOException {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        return open(path, capacity, Striped64.DEFAULT_MAX_CELLS, false);
+    }
+
+    /**
+     * Opens the counter file at the given path, creating it with the
+     * given shape if it does not exist.
+     *
+     * @param path     the file
+     * @param capacity number of counters for a new file; an existing
+     *                 file must have at least this many
+     * @param stripes  stripes per counter, rounded up to a power of two;
+     *                 an existing file must have exactly this many
+     * @return the open file
+     * @throws IOException if the file cannot be mapped or is not a
+     *                     counter file of sufficient capacity and the
+     *                     requested stripe count
+     */
+    public static CounterFile open(Path path, int capacity, int stripes) throws IOException {
+        if (capacity <= 0 || stripes <= 0)
+            throw new IllegalArgumentException("capacity and stripes must be positive");
+        return open(path, capacity, stripes, true);
+    }
+
+    private static CounterFile open(Path path, int capacity, int stripes, boolean exactStripes)
+            throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 两个进程同时打开一个新文件时都会看到 size() == 0, 加文件锁让初始化只发生一次
+            FileLock lock = ch.lock();
+            try {
+                return openLocked(path, ch, capacity, stripes, exactStripes);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Creates or validates the file behind ch and maps it; runs under
+     * the file lock.
+     */
+    private static CounterFile openLocked(Path path, FileChannel ch, int capacity, int stripes,
+                                          boolean exactStripes) throws IOException {
+        if (ch.size() == 0L) {
+            int n = Striped64.tableSizeFor(stripes);
+            long size = (long) capacity * n > Integer.MAX_VALUE ? Long.MAX_VALUE
+                    : HEADER_SIZE + StripedBuffer.regionSize(capacity, n);
+            if (size > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("counter file too large: " + capacity
+                        + " counters of " + n + " stripes exceed one 2GB mapping");
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0L, size);
+            buf.order(ByteOrder.nativeOrder());
+            buf.putInt(VERSION_OFFSET, VERSION);
+            buf.putInt(CAPACITY_OFFSET, capacity);
+            buf.putInt(STRIPES_OFFSET, n);
+            // magic 最后写入并落盘, 半初始化的文件下次打开会被拒绝
+            buf.force();
+            buf.putLong(MAGIC_OFFSET, MAGIC);
+            buf.force();
+            return new CounterFile(path, buf, capacity, n);
+        }
+        if (ch.size() < HEADER_SIZE)
+            throw new IOException(path + ": not a counter file");
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+        ch.read(header, 0L);
+        if (header.getLong(MAGIC_OFFSET) != MAGIC)
+            throw new IOException(path + ": bad magic, not a counter file or wrong byte order");
+        if (header.getInt(VERSION_OFFSET) != VERSION)
+            throw new IOException(path + ": unsupported version " + header.getInt(VERSION_OFFSET));
+        int cap = header.getInt(CAPACITY_OFFSET), n = header.getInt(STRIPES_OFFSET);
+        if (cap <= 0 || n <= 0 || (n & (n - 1)) != 0)
+            throw new IOException(path + ": corrupt header, capacity " + cap + ", stripes " + n);
+        if (cap < capacity)
+            throw new IOException(path + ": holds " + cap + " counters, " + capacity + " requested");
+        if (exactStripes && n != Striped64.tableSizeFor(stripes))
+            throw new IOException(path + ": has " + n + " stripes per counter, "
+                    + Striped64.tableSizeFor(stripes) + " requested");
+        // 一次 map 最多 2GB, 先在这里拒绝, 否则 map 抛的是 IllegalArgumentException
+        long size = (long) cap * n > Integer.MAX_VALUE ? Long.MAX_VALUE
+                : HEADER_SIZE + StripedBuffer.regionSize(cap, n);
+        if (size > Integer.MAX_VALUE)
+            throw new IOException(path + ": " + cap + " counters of " + n
+                    + " stripes exceed the 2GB a single mapping can hold");
+        if (ch.size() < size)
+            throw new IOException(path + ": truncated");
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0L, size);
+        buf.order(ByteOrder.nativeOrder());
+        return new CounterFile(path, buf, cap, n);
+    }
+
+    /**
+     * Returns the file this instance maps.
+     */
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * Returns the number of counters in the file.
+     */
+    public int capacity() {
+        return table.capacity;
+    }
+
+    /**
+     * Returns the number of stripes per counter.
+     */
+    public int stripes() {
+        return table.stripes;
+    }
+
+    /**
+     * Returns a handle on counter index. Any number of handles may
+     * share a counter, within or across processes mapping the file.
+     *
+     * @param index the counter index
+     */
+    public OffHeapCounter counter(int index) {
+        if (index < 0 || index >= table.capacity)
+            throw new IndexOutOfBoundsException("counter " + index + " of " + table.capacity);
+        return new OffHeapCounter(table, index);
+    }
+
+    /**
+     * Adds x to counter index.
+     */
+    public void add(int index, long x) {
+        table.add(index, x);
+    }
+
+    /**
+     * Returns the current sum of counter index; see {@link LongAdder#sum}.
+     */
+    public long sum(int index) {
+        return table.sum(index);
+    }
+
+    /**
+     * Returns the current sum of counter index and clears it, without
+     * losing concurrent updates.
+     */
+    public long sumThenReset(int index) {
+        return table.sumThenReset(index);
+    }
+
+    /**
+     * Writes all modified pages to the storage device and waits for
+     * completion.
+     */
+    public void force() {
+        buf.force();
+    }
+
+    /**
+     * Starts calling {@link #force} at the given rate from a daemon
+     * thread, replacing any previous schedule. A period of zero stops
+     * checkpointing.
+     *
+     * @param period time between checkpoints
+     * @param unit   the unit of period
+     */
+    public synchronized void checkpointEvery(long period, TimeUnit unit) {
+        if (period < 0L)
+            throw new IllegalArgumentException("negative period: " + period);
+        if (checkpointer != null) {
+            checkpointer.shutdown();
+            checkpointer = null;
+        }
+        if (period == 0L)
+            return;
+        checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "counter-file-checkpoint " + path.getFileName());
+            t.setDaemon(true);
+            return t;
+        });
+        checkpointer.scheduleAtFixedRate(this::force, period, period, unit);
+    }
+
+    /**
+     * Stops checkpointing and forces the file one last time. The
+     * mapping itself is released when this instance becomes
+     * unreachable; handles obtained from it must not be used after
+     * closing.
+     */
+    @Override
+    public synchronized void close() {
+        if (checkpointer != null) {
+            checkpointer.shutdown();
+            checkpointer = null;
+        }
+        force();
+    }
+}
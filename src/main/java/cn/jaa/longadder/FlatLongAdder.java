@@ -0,0 +1,203 @@
+package cn.jaa.longadder;
+
+import java.io.Serializable;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: stripe 平铺在一个 long[] 里的 LongAdder
+ * <p>
+ * Same contract as {@link LongAdder}, backed by {@link FlatStriped64}:
+ * all stripes share one {@code long[]}, 128 bytes apart, instead of one
+ * padded Cell object each. The table starts at two stripes on first
+ * contention and doubles on repeated collisions up to the nearest
+ * power of two not less than the number of CPUs, exactly like
+ * {@code LongAdder}. A full table takes about half the memory of the
+ * Cell-based one, and {@link #sum} reads a single contiguous block.
+ *
+ * <p>Unlike {@code LongAdder}, every successful update of a stripe
+ * rechecks that the table was not replaced meanwhile (see
+ * FlatStriped64); that is one extra volatile read on the update path.
+ */
+public class FlatLongAdder extends FlatStriped64 implements Serializable {
+    private static final long serialVersionUID = -3315893049837427263L;
+
+    /**
+     * Creates a new adder with initial sum of zero.
+     */
+    public FlatLongAdder() {
+    }
+
+    /**
+     * Adds the given value.
+     *
+     * @param x the value to add
+     */
+    public void add(long x) {
+        long[] as;
+        long b, v;
+        int n, i;
+        if ((as = stripes) != null || !casBase(b = base, b + x)) {
+            boolean uncontended = true;
+            if (as == null || (n = stripeCount(as)) <= 0 ||
+                    !(uncontended = casStripe(as, i = Striped64.getProbe() & (n - 1),
+                            v = as[offset(i)], v + x)))
+                longAccumulate(x, uncontended);
+            else if (stripes != as)
+                // 表在这期间被扩容过, 这次写入可能落在已经搬空的旧表上
+                rescue(as, i);
+        }
+    }
+
+    /**
+     * Equivalent to {@code add(1)}.
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Equivalent to {@code add(-1)}.
+     */
+    public void decrement() {
+        add(-1L);
+    }
+
+    /**
+     * Returns the current sum.  The returned value is <em>NOT</em> an
+     * atomic snapshot; invocation in the absence of concurrent
+     * updates returns an accurate result, but concurrent updates that
+     * occur while the sum is being calculated might not be
+     * incorporated.
+     *
+     * @return the sum
+     */
+    public long sum() {
+        long[] as = stripes;
+        long sum = base;
+        if (as != null) {
+            for (int i = 0, n = stripeCount(as); i < n; i++)
+                sum += getStripe(as, i);
+        }
+        return sum;
+    }
+
+    /**
+     * Resets variables maintaining the sum to zero.  This method may
+     * be a useful alternative to creating a new adder, but is only
+     * effective if there are no concurrent updates.  Because this
+     * method is intrinsically racy, it should only be used when it is
+     * known that no threads are concurrently updating.
+     */
+    public void reset() {
+        long[] as = stripes;
+        base = 0L;
+        if (as != null) {
+            for (int i = 0, n = stripeCount(as); i < n; i++)
+                setStripe(as, i, 0L);
+        }
+    }
+
+    /**
+     * Equivalent in effect to {@link #sum} followed by {@link
+     * #reset}. This method may apply for example during quiescent
+     * points between multithreaded computations.  If there are
+     * updates concurrent with this method, the returned value is
+     * <em>not</em> guaranteed to be the final value occurring before
+     * the reset.
+     *
+     * @return the sum
+     */
+    public long sumThenReset() {
+        long[] as = stripes;
+        long sum = getAndSetBase(0L);
+        if (as != null) {
+            for (int i = 0, n = stripeCount(as); i < n; i++)
+                sum += getAndSetStripe(as, i, 0L);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the String representation of the {@link #sum}.
+     *
+     * @return the String representation of the {@link #sum}
+     */
+    public String toString() {
+        return Long.toString(sum());
+    }
+
+    /**
+     * Equivalent to {@link #sum}.
+     *
+     * @return the sum
+     */
+    public long longValue() {
+        return sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as an {@code int} after a narrowing
+     * primitive conversion.
+     */
+    public int intValue() {
+        return (int) sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as a {@code float}
+     * after a widening primitive conversion.
+     */
+    public float floatValue() {
+        return (float) sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as a {@code double} after a widening
+     * primitive conversion.
+     */
+    public double doubleValue() {
+        return (double) sum();
+    }
+
+    /**
+     * Serialization proxy, used to avoid reference to the non-public
+     * FlatStriped64 superclass in serialized forms.
+     *
+     * @serial include
+     */
+    private static class SerializationProxy implements Serializable {
+        private static final long serialVersionUID = -3315893049837427263L;
+
+        /**
+         * The current value returned by sum().
+         *
+         * @serial
+         */
+        private final long value;
+
+        SerializationProxy(FlatLongAdder a) {
+            value = a.sum();
+        }
+
+        private Object readResolve() {
+            FlatLongAdder a = new FlatLongAdder();
+            a.base = value;
+            return a;
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    /**
+     * @param s the stream
+     * @throws java.io.InvalidObjectException always
+     */
+    private void readObject(java.io.ObjectInputStream s)
+            throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("Proxy required");
+    }
+
+}
@@ -0,0 +1,224 @@
+package cn.jaa.longadder;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: Striped64 的另一种存储方式: 所有 stripe 放在同一个 long[] 里, 按缓存行跨步排列
+ * <p>
+ * A package-local variant of {@link Striped64} for additive updates
+ * that keeps all stripes in one {@code long[]} instead of an array of
+ * separately allocated Cells. Stripe {@code i} lives at index
+ * {@code (i + 1) * STRIDE}, so consecutive stripes are 128 bytes apart
+ * and the first one is 128 bytes past the array header; the last
+ * STRIDE - 1 elements pad the tail. This saves a header and a
+ * reference per stripe and lets {@code sum()} walk one contiguous
+ * block instead of chasing a pointer per slot.
+ */
+@SuppressWarnings("serial")
+abstract class FlatStriped64 extends Number {
+    /*
+     * Same lazy-growth scheme as Striped64: updates go to base until a
+     * CAS on it fails, the table is then created with
+     * DEFAULT_INITIAL_CELLS stripes and doubled on repeated collisions
+     * up to DEFAULT_MAX_CELLS, under the cellsBusy spinlock. There are
+     * no empty slots to populate, since a stripe is just an array
+     * element.
+     *
+     * The one real difference is growth. Striped64 can copy Cell
+     * references into the larger table, and a thread still CASing a
+     * Cell through the old table updates the same Cell. Here the old
+     * and new tables are distinct memory, so the grower publishes the
+     * new table first, then drains each old stripe with getAndSet(0)
+     * into the matching new stripe. A writer whose CAS on the old
+     * table lands after its stripe was drained notices, by rechecking
+     * stripes after every successful CAS, that the table was replaced,
+     * and moves its stripe's contents into base (rescue). Every unit
+     * is taken by exactly one getAndSet, so nothing is lost or
+     * counted twice; a concurrent sum() may miss units in transit,
+     * which it is allowed to.
+     */
+
+    /**
+     * Number of longs per stripe: 128 bytes, two 64-byte lines.
+     */
+    static final int STRIDE = 16;
+
+    /**
+     * Table of stripes. When non-null, holds (n + 1) * STRIDE longs
+     * for a power of two n.
+     */
+    transient volatile long[] stripes;
+
+    /**
+     * Base value, used mainly when there is no contention, but also as
+     * a fallback during table initialization races. Updated via CAS.
+     */
+    transient volatile long base;
+
+    /**
+     * Spinlock (locked via CAS) used when creating and growing stripes.
+     */
+    transient volatile int cellsBusy;
+
+    FlatStriped64() {
+    }
+
+    /**
+     * Returns the array index of stripe i.
+     */
+    static int offset(int i) {
+        return (i + 1) * STRIDE;
+    }
+
+    /**
+     * Returns the number of stripes in the given table.
+     */
+    static int stripeCount(long[] as) {
+        return as.length / STRIDE - 1;
+    }
+
+    static long newTableLength(int n) {
+        return (long) (n + 1) * STRIDE;
+    }
+
+    final boolean casBase(long cmp, long val) {
+        return BASE.compareAndSet(this, cmp, val);
+    }
+
+    final long getAndSetBase(long val) {
+        return (long) BASE.getAndSet(this, val);
+    }
+
+    final boolean casCellsBusy() {
+        return CELLSBUSY.compareAndSet(this, 0, 1);
+    }
+
+    static boolean casStripe(long[] as, int i, long cmp, long val) {
+        return AA.compareAndSet(as, offset(i), cmp, val);
+    }
+
+    static long getStripe(long[] as, int i) {
+        return (long) AA.getVolatile(as, offset(i));
+    }
+
+    static long getAndSetStripe(long[] as, int i, long val) {
+        return (long) AA.getAndSet(as, offset(i), val);
+    }
+
+    static void setStripe(long[] as, int i, long val) {
+        AA.setVolatile(as, offset(i), val);
+    }
+
+    /**
+     * Moves whatever is in stripe i of a replaced table into base.
+     */
+    final void rescue(long[] as, int i) {
+        long v = getAndSetStripe(as, i, 0L), b;
+        if (v != 0L)
+            while (!casBase(b = base, b + v)) ;
+    }
+
+    /**
+     * Installs a table of n stripes right away. Only for use from
+     * constructors and benchmarks that need a known layout.
+     */
+    final void presize(int n) {
+        stripes = new long[(int) newTableLength(Striped64.tableSizeFor(n))];
+    }
+
+    /**
+     * Handles cases of updates involving initialization, resizing
+     * and/or contention; the flat counterpart of
+     * Striped64.longAccumulate for additive updates.
+     *
+     * @param x              the value
+     * @param wasUncontended false if CAS failed before call
+     */
+    final void longAccumulate(long x, boolean wasUncontended) {
+        int h;
+        if ((h = Striped64.getProbe()) == 0) {
+            Striped64.initProbe(); // force initialization
+            h = Striped64.getProbe();
+            wasUncontended = true;
+        }
+        boolean collide = false;                // True if last slot nonempty
+        done:
+        for (; ; ) {
+            long[] as;
+            int n, i;
+            long v;
+            if ((as = stripes) != null && (n = stripeCount(as)) > 0) {
+                if (!wasUncontended)            // CAS already known to fail
+                    wasUncontended = true;      // Continue after rehash
+                else if (casStripe(as, i = (n - 1) & h, v = getStripe(as, i), v + x)) {
+                    if (stripes != as)          // may have hit a drained table
+                        rescue(as, i);
+                    break;
+                } else if (n >= Striped64.DEFAULT_MAX_CELLS || stripes != as)
+                    collide = false;            // At max size or stale
+                else if (!collide)
+                    collide = true;
+                else if (cellsBusy == 0 && casCellsBusy()) {
+                    try {
+                        if (stripes == as)      // Expand table unless stale
+                            grow(as, n);
+                    } finally {
+                        cellsBusy = 0;
+                    }
+                    collide = false;
+                    continue;                   // Retry with expanded table
+                }
+                h = Striped64.advanceProbe(h);
+            } else if (cellsBusy == 0 && stripes == as && casCellsBusy()) {
+                try {                           // Initialize table
+                    if (stripes == as) {
+                        int m = Striped64.DEFAULT_INITIAL_CELLS;
+                        long[] rs = new long[(int) newTableLength(m)];
+                        rs[offset(h & (m - 1))] = x;
+                        stripes = rs;
+                        break done;
+                    }
+                } finally {
+                    cellsBusy = 0;
+                }
+            }
+            // Fall back on using base
+            else if (casBase(v = base, v + x))
+                break done;
+        }
+    }
+
+    /**
+     * Doubles the table. Called with cellsBusy held.
+     */
+    private void grow(long[] as, int n) {
+        long[] rs = new long[(int) newTableLength(n << 1)];
+        // 先发布新表, 再把旧表逐个搬过去; 搬完之后才写到旧表上的线程会自己 rescue
+        stripes = rs;
+        for (int i = 0; i < n; i++) {
+            long v = getAndSetStripe(as, i, 0L);
+            if (v != 0L)
+                AA.getAndAdd(rs, offset(i), v);
+        }
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle BASE;
+    private static final VarHandle CELLSBUSY;
+    static final VarHandle AA = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            BASE = l.findVarHandle(FlatStriped64.class,
+                    "base", long.class);
+            CELLSBUSY = l.findVarHandle(FlatStriped64.class,
+                    "cellsBusy", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
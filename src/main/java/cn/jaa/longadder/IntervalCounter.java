@@ -0,0 +1,202 @@
+package cn.jaa.longadder;
+
+import java.io.Serializable;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 按周期上报增量的计数器: 两代轮换, flip 等旧代上的在途写者离开后再收取, 每次加法恰好计入它生效的那个周期
+ * <p>
+ * A counter for periodic delta reporting. {@link LongAdder#sumThenReset}
+ * is exact per cell, but a report built from sum-then-reset on a single
+ * adder mixes increments made while it runs into the current interval
+ * or the next one arbitrarily, and a writer that is preempted between
+ * reading a cell and updating it lands in the next report.
+ * <p>
+ * This class is a delta over {@link SnapshotLongAdder#snapshot}, which
+ * already switches between two generations without blocking writers
+ * and waits for the writers still inside the retired one. {@link #flip}
+ * takes a snapshot and reports the difference from the previous one, so
+ * each update is reported by exactly the flip that ends the interval in
+ * which it took effect: every update that completed before the flip
+ * began is in its delta, and none that started after it returned is.
+ * <p>
+ * Writers never wait: at worst one retries once per flip. An update
+ * costs what a SnapshotLongAdder update costs, three striped increments
+ * instead of one, all on the calling thread's own cells; that is the
+ * price of exact attribution, and this class adds nothing to it.
+ * <pre>
+ *   IntervalCounter requests = new IntervalCounter();
+ *   scheduler.scheduleAtFixedRate(() -> report(requests.flip()), 1, 1, TimeUnit.SECONDS);
+ * </pre>
+ */
+public class IntervalCounter extends Number implements Serializable {
+    private static final long serialVersionUID = 1940474317423566045L;
+
+    private final SnapshotLongAdder adder = new SnapshotLongAdder();
+
+    /**
+     * The snapshot taken by the last flip, i.e. everything reported so
+     * far. Guarded by this.
+     */
+    private long reported;
+
+    /**
+     * Creates a new counter with an empty first interval.
+     */
+    public IntervalCounter() {
+    }
+
+    /**
+     * Adds the given value to the current interval.
+     *
+     * @param x the value to add
+     */
+    public void add(long x) {
+        adder.add(x);
+    }
+
+    /**
+     * Equivalent to {@code add(1)}.
+     */
+    public void increment() {
+        adder.add(1L);
+    }
+
+    /**
+     * Equivalent to {@code add(-1)}.
+     */
+    public void decrement() {
+        adder.add(-1L);
+    }
+
+    /**
+     * Ends the current interval and returns its delta, then starts a
+     * new one. Waits for writers still inside the ending interval, which
+     * takes no longer than their single update. Concurrent calls are
+     * serialized.
+     *
+     * @return the sum of updates made in the interval just ended
+     */
+    public synchronized long flip() {
+        // 快照的切换点就是两个周期的分界, 两次快照之差恰好是本周期的全部增量
+        long s = adder.snapshot();
+        long delta = s - reported;
+        reported = s;
+        return delta;
+    }
+
+    /**
+     * Returns the sum of updates made since the last {@link #flip},
+     * without ending the interval. Not an atomic snapshot.
+     *
+     * @return the current interval's sum so far
+     */
+    public synchronized long current() {
+        // 持锁读, reported 与 sum 之间不会插进一次 flip
+        return adder.sum() - reported;
+    }
+
+    /**
+     * Returns the sum of all updates ever made: everything reported by
+     * flip plus the current interval. Not an atomic snapshot.
+     *
+     * @return the sum
+     */
+    public long sum() {
+        return adder.sum();
+    }
+
+    /**
+     * Returns the String representation of the {@link #sum}.
+     *
+     * @return the String representation of the {@link #sum}
+     */
+    public String toString() {
+        return Long.toString(sum());
+    }
+
+    /**
+     * Equivalent to {@link #sum}.
+     *
+     * @return the sum
+     */
+    public long longValue() {
+        return sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as an {@code int} after a narrowing
+     * primitive conversion.
+     */
+    public int intValue() {
+        return (int) sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as a {@code float}
+     * after a widening primitive conversion.
+     */
+    public float floatValue() {
+        return (float) sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as a {@code double} after a widening
+     * primitive conversion.
+     */
+    public double doubleValue() {
+        return (double) sum();
+    }
+
+    /**
+     * Serialization proxy, used to avoid reference to the internal
+     * adder in serialized forms.
+     *
+     * @serial include
+     */
+    private static class SerializationProxy implements Serializable {
+        private static final long serialVersionUID = 1940474317423566045L;
+
+        /**
+         * Everything reported by flip so far.
+         *
+         * @serial
+         */
+        private final long reported;
+
+        /**
+         * The current interval's sum.
+         *
+         * @serial
+         */
+        private final long current;
+
+        SerializationProxy(IntervalCounter c) {
+            synchronized (c) {
+                reported = c.reported;
+                current = c.adder.sum() - reported;
+            }
+        }
+
+        private Object readResolve() {
+            IntervalCounter c = new IntervalCounter();
+            c.adder.add(reported + current);
+            c.reported = reported;
+            return c;
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    /**
+     * @param s the stream
+     * @throws java.io.InvalidObjectException always
+     */
+    private void readObject(java.io.ObjectInputStream s)
+            throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("Proxy required");
+    }
+}
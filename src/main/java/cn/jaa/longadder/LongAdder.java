@@ -35,7 +35,12 @@
 
 package cn.jaa.longadder;
 
+import cn.jaa.cas.Backoff;
+
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -66,16 +71,106 @@ import java.util.concurrent.atomic.AtomicLong;
  * compareTo} because instances are expected to be mutated, and so are
  * not useful as collection keys.
  *
+ * <p>An adder created with {@link #LongAdder(long, TimeUnit)} gives
+ * its cells back once contention subsides: when {@link #sum} sees the
+ * cells unchanged for the given quiet period it folds them into the
+ * base value and drops the table, so later reads are O(1) and idle
+ * adders no longer hold padded cells. The table is re-created on the
+ * next contended update.
+ *
+ * <p>Counters known to be hot can be sized up front through {@link
+ * #builder}: the initial stripe count is used on first contention
+ * (or immediately, with {@link Builder#presized}), and the maximum
+ * stripe count may exceed the number of CPUs for thread pools with
+ * more runnable threads than cores. For example:
+ * <pre> {@code
+ * LongAdder hits = LongAdder.builder()
+ *     .initialStripes(64)
+ *     .maxStripes(256)
+ *     .presized()
+ *     .build();}</pre>
+ *
+ * <p>Adders read far more often than they are written, such as those
+ * polled by dashboards, can be built with {@link Builder#cacheSum}.
+ * {@link #sum} then remembers its last result and returns it in O(1)
+ * until an update marks it stale. An update checks the mark with one
+ * volatile read, and only the first update after a read writes it.
+ *
  * @author Doug Lea
  * @since 1.8
  */
 public class LongAdder extends Striped64 implements Serializable {
     private static final long serialVersionUID = 7249069246863182397L;
 
+    /*
+     * Cached sums. sumState holds two bits: DIRTY, set by the first
+     * update after the cache was filled, and COMPUTING, held by the one
+     * reader refreshing the cache. A writer updates its cell or base
+     * first and reads sumState second; the refreshing reader clears
+     * DIRTY first and reads the cells second. With both sides volatile,
+     * either the reader sees the update or the writer sees DIRTY clear
+     * and sets it again, so cachedSum is only published as CLEAN when
+     * it includes every update that completed before the refresh.
+     */
+    private static final int CLEAN = 0;
+    private static final int DIRTY = 1;
+    private static final int COMPUTING = 2;
+
+    private final boolean cacheSum;
+    private transient volatile int sumState = DIRTY;
+    private transient volatile long cachedSum;
+
     /**
      * Creates a new adder with initial sum of zero.
      */
     public LongAdder() {
+        cacheSum = false;
+    }
+
+    /**
+     * Creates a new adder with initial sum of zero that drops its
+     * cells once they have been left unchanged for the given period.
+     *
+     * @param quietPeriod how long the cells must stay unchanged
+     * @param unit        the unit of {@code quietPeriod}
+     * @throws IllegalArgumentException if {@code quietPeriod} is not positive
+     */
+    public LongAdder(long quietPeriod, TimeUnit unit) {
+        super(deflateNanos(quietPeriod, unit));
+        cacheSum = false;
+    }
+
+    private LongAdder(Builder b) {
+        super(b.initialStripes, b.maxStripes, b.deflateNanos,
+                b.recordContention ? ContentionStats.newInstance() : null, b.backoff);
+        cacheSum = b.cacheSum;
+        if (b.presized)
+            presize(0L);
+    }
+
+    /**
+     * Returns the contention counters of this adder.
+     *
+     * @return the stats, or {@code null} unless this adder was built
+     * with {@link Builder#recordContention()}
+     */
+    public ContentionStats contentionStats() {
+        return stats;
+    }
+
+    /**
+     * Returns a builder for adders with a configured stripe layout.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static long deflateNanos(long quietPeriod, TimeUnit unit) {
+        if (quietPeriod <= 0L)
+            throw new IllegalArgumentException("quietPeriod must be positive");
+        return unit.toNanos(quietPeriod);
     }
 
     /**
@@ -119,7 +214,17 @@ public class LongAdder extends Striped64 implements Serializable {
                 // 2. true-> 说明当前线程对应下标的cell为空,需要创建 longAccumulate 支持
                 // 3. true->表示cas失败, 意味着 当前线程对应的cell有竞争
                 longAccumulate(x, null, uncontended);
+            // 开启收缩时, cells 已被替换说明这次写入可能落在被摘掉的表上, 搬回 base
+            else if (deflateNanos != 0L && cells != cs)
+                rescue(c);
         }
+        // 缓存求和: 只有读者刷新缓存后的第一次写入才需要原子地置脏
+        if (cacheSum && (sumState & DIRTY) == 0)
+            markDirty();
+    }
+
+    private void markDirty() {
+        SUM_STATE.getAndBitwiseOr(this, DIRTY);
     }
 
     /**
@@ -146,16 +251,70 @@ public class LongAdder extends Striped64 implements Serializable {
      * @return the sum
      */
     public long sum() {
-        Cell[] cs = cells;
-        long sum = base;
-        if (cs != null) {
-            for (Cell c : cs)
-                if (c != null)
-                    sum += c.value;
-        }
+        if (!cacheSum)
+            return computeSum();
+        int s = sumState;
+        if (s == CLEAN)
+            return cachedSum;
+        if (s != DIRTY || !SUM_STATE.compareAndSet(this, DIRTY, COMPUTING))
+            return computeSum();   // 另一个读者正在刷新, 直接现算
+        long sum = computeSum();
+        cachedSum = sum;
+        if (!SUM_STATE.compareAndSet(this, COMPUTING, CLEAN))
+            SUM_STATE.getAndBitwiseAnd(this, ~COMPUTING);
         return sum;
     }
 
+    private long computeSum() {
+        if (deflateNanos == 0L) {
+            Cell[] cs = cells;
+            long sum = base;
+            if (cs != null) {
+                for (Cell c : cs)
+                    if (c != null)
+                        sum += c.value;
+            }
+            return sum;
+        }
+        // 收缩时值会短暂地既不在 Cell 也不在 base 里, 读到收缩进行中或前后 seq 变了就重读
+        for (int spins = 0; ; spins++) {
+            int q = deflateSeq;
+            if ((q & 1) == 0) {
+                Cell[] cs = cells;
+                long sum = base;
+                long cellSum = 0L;
+                if (cs != null) {
+                    for (Cell c : cs)
+                        if (c != null)
+                            cellSum += c.value;
+                }
+                if (deflateSeq == q) {
+                    if (cs != null && deflateIfQuiet(cellSum) && cacheSum)
+                        markDirty();
+                    return sum + cellSum;
+                }
+            }
+            if ((spins & 63) == 63)
+                Thread.yield();
+            else
+                Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Folds the cells into the base value and drops the cell table
+     * right away, without waiting for the quiet period. Has no effect
+     * unless this adder was created with a quiet period.
+     *
+     * @return {@code true} if a cell table was dropped
+     */
+    public boolean deflate() {
+        boolean dropped = tryDeflate();
+        if (dropped && cacheSum)
+            markDirty();
+        return dropped;
+    }
+
     /**
      * Resets variables maintaining the sum to zero.  This method may
      * be a useful alternative to creating a new adder, but is only
@@ -171,6 +330,8 @@ public class LongAdder extends Striped64 implements Serializable {
                 if (c != null)
                     c.reset();
         }
+        if (cacheSum)
+            markDirty();
     }
 
     /**
@@ -192,6 +353,8 @@ public class LongAdder extends Striped64 implements Serializable {
                     sum += c.getAndSet(0L);
             }
         }
+        if (cacheSum)
+            markDirty();
         return sum;
     }
 
@@ -237,6 +400,137 @@ public class LongAdder extends Striped64 implements Serializable {
         return (double) sum();
     }
 
+    /**
+     * Builder for {@code LongAdder}s with a non-default stripe layout.
+     * Stripe counts are rounded up to the next power of two.
+     */
+    public static final class Builder {
+        private int initialStripes = DEFAULT_INITIAL_CELLS;
+        private int maxStripes = DEFAULT_MAX_CELLS;
+        private boolean maxStripesSet;
+        private boolean presized;
+        private long deflateNanos;
+        private boolean recordContention;
+        private boolean cacheSum;
+        private Backoff backoff;
+
+        Builder() {
+        }
+
+        /**
+         * Sets the number of stripes created on first contention. If
+         * {@link #maxStripes} is not set, the maximum is raised to this
+         * count when it is larger than the default of one per CPU.
+         *
+         * @param stripes the initial stripe count
+         * @return this builder
+         * @throws IllegalArgumentException if {@code stripes} is not positive
+         */
+        public Builder initialStripes(int stripes) {
+            if (stripes <= 0)
+                throw new IllegalArgumentException("stripes must be positive");
+            initialStripes = tableSizeFor(stripes);
+            return this;
+        }
+
+        /**
+         * Sets the stripe count beyond which the table stops growing.
+         * May be larger than the number of CPUs.
+         *
+         * @param stripes the maximum stripe count
+         * @return this builder
+         * @throws IllegalArgumentException if {@code stripes} is not positive
+         */
+        public Builder maxStripes(int stripes) {
+            if (stripes <= 0)
+                throw new IllegalArgumentException("stripes must be positive");
+            maxStripes = tableSizeFor(stripes);
+            maxStripesSet = true;
+            return this;
+        }
+
+        /**
+         * Allocates the initial table and all of its cells when the
+         * adder is built, instead of on first contention.
+         *
+         * @return this builder
+         */
+        public Builder presized() {
+            presized = true;
+            return this;
+        }
+
+        /**
+         * Lets the adder drop its cells once they have been left
+         * unchanged for the given period, as {@link
+         * LongAdder#LongAdder(long, TimeUnit)} does.
+         *
+         * @param quietPeriod how long the cells must stay unchanged
+         * @param unit        the unit of {@code quietPeriod}
+         * @return this builder
+         * @throws IllegalArgumentException if {@code quietPeriod} is not positive
+         */
+        public Builder deflateAfter(long quietPeriod, TimeUnit unit) {
+            deflateNanos = deflateNanos(quietPeriod, unit);
+            return this;
+        }
+
+        /**
+         * Makes the adder count its contention events; see {@link
+         * ContentionStats}. Uncontended updates are not affected.
+         *
+         * @return this builder
+         */
+        public Builder recordContention() {
+            recordContention = true;
+            return this;
+        }
+
+        /**
+         * Makes {@link LongAdder#sum} cache its result until the next
+         * update, for adders read much more often than written.
+         *
+         * @return this builder
+         */
+        public Builder cacheSum() {
+            cacheSum = true;
+            return this;
+        }
+
+        /**
+         * Makes contended updates wait according to the given policy
+         * between failed attempts, instead of retrying at once.
+         * Uncontended updates are not affected.
+         *
+         * @param backoff the policy
+         * @return this builder
+         * @throws NullPointerException if {@code backoff} is null
+         */
+        public Builder backoff(Backoff backoff) {
+            if (backoff == null)
+                throw new NullPointerException();
+            this.backoff = backoff;
+            return this;
+        }
+
+        /**
+         * Creates the adder.
+         *
+         * @return a new adder with initial sum of zero
+         * @throws IllegalArgumentException if the initial stripe count
+         *                                  exceeds an explicitly set maximum
+         */
+        public LongAdder build() {
+            // 没有显式设置上限时, 上限至少跟初始大小一样大
+            if (!maxStripesSet && initialStripes > maxStripes)
+                maxStripes = initialStripes;
+            if (initialStripes > maxStripes)
+                throw new IllegalArgumentException("initialStripes " + initialStripes
+                        + " exceeds maxStripes " + maxStripes);
+            return new LongAdder(this);
+        }
+    }
+
     /**
      * Serialization proxy, used to avoid reference to the non-public
      * Striped64 superclass in serialized forms.
@@ -293,4 +587,16 @@ public class LongAdder extends Striped64 implements Serializable {
         throw new java.io.InvalidObjectException("Proxy required");
     }
 
+
+    // VarHandle mechanics
+    private static final VarHandle SUM_STATE;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            SUM_STATE = l.findVarHandle(LongAdder.class, "sumState", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 }
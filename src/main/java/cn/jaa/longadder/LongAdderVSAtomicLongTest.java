@@ -3,7 +3,6 @@ package cn.jaa.longadder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @Author: Jaa
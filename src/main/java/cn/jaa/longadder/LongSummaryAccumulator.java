@@ -0,0 +1,304 @@
+package cn.jaa.longadder;
+
+import cn.jaa.cas.Backoff;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 并发的汇总统计累加器: 每个分段同时保存 count/sum/min/max, 一次事件只需一次原子写
+ * <p>
+ * Collects count, sum, minimum and maximum of a stream of values
+ * recorded from many threads, with one atomic operation per value
+ * instead of one per statistic. Each stripe is a padded cell holding
+ * all four fields behind a sequence word. A recording thread takes its
+ * stripe by CASing the sequence from even to odd, updates the fields
+ * with plain writes, and releases the stripe with a release store of
+ * the next even value. If the CAS fails the thread moves to another
+ * stripe, as Striped64 does, instead of waiting.
+ * <p>
+ * {@link #summary} reads every stripe seqlock-style, retrying a stripe
+ * whose sequence changed during the read, so each stripe contributes a
+ * consistent (count, sum, min, max) and readers never block writers.
+ * As with {@link LongAdder#sum}, stripes are read one after another,
+ * and the result is not an atomic snapshot across them.
+ * {@link #summaryThenReset} takes each stripe like a writer does and
+ * loses no values. A reader that finds a stripe held spins briefly,
+ * then yields and finally parks, so a writer descheduled mid-update
+ * does not leave it burning the CPU that writer needs.
+ * <p>
+ * There is one stripe per CPU, rounded up to a power of two, allocated
+ * with the accumulator.
+ */
+public class LongSummaryAccumulator implements Serializable {
+    private static final long serialVersionUID = 4310719374569437193L;
+
+    /**
+     * The fields of a stripe, laid out after Striped64's left-hand
+     * cell padding.
+     */
+    abstract static class StripeFields extends Striped64.CellLhsPadding {
+        /**
+         * Odd while a thread is updating the stripe.
+         */
+        volatile long seq;
+        long count;
+        long sum;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+    }
+
+    @SuppressWarnings("unused")
+    abstract static class StripeRhsPadding extends StripeFields {
+        long q00, q01, q02, q03, q04, q05, q06, q07;
+        long q08, q09, q10, q11, q12, q13, q14, q15;
+    }
+
+    static final class Stripe extends StripeRhsPadding {
+        /**
+         * Takes the stripe if it is free; returns the sequence to
+         * release with, or -1.
+         */
+        long tryLock() {
+            long q = seq;
+            return ((q & 1L) == 0L && SEQ.compareAndSet(this, q, q + 1L)) ? q + 2L : -1L;
+        }
+
+        void unlock(long next) {
+            SEQ.setRelease(this, next);
+        }
+    }
+
+    /**
+     * How readers wait for a stripe held by a writer. A writer holds it
+     * for a few plain stores, so spinning usually suffices.
+     */
+    private static final Backoff READER_BACKOFF = Backoff.spinYieldPark(64, 16, 20_000L);
+
+    private final transient Stripe[] stripes;
+
+    /**
+     * Creates a new accumulator with no values.
+     */
+    public LongSummaryAccumulator() {
+        Stripe[] ss = new Stripe[Striped64.DEFAULT_MAX_CELLS];
+        for (int i = 0; i < ss.length; i++)
+            ss[i] = new Stripe();
+        stripes = ss;
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param x the value
+     */
+    public void accept(long x) {
+        Stripe[] ss = stripes;
+        int m = ss.length - 1, h;
+        if ((h = Striped64.getProbe()) == 0) {
+            Striped64.initProbe();
+            h = Striped64.getProbe();
+        }
+        for (; ; ) {
+            Stripe s = ss[h & m];
+            long next = s.tryLock();
+            if (next >= 0L) {
+                s.count++;
+                s.sum += x;
+                if (x < s.min)
+                    s.min = x;
+                if (x > s.max)
+                    s.max = x;
+                s.unlock(next);
+                return;
+            }
+            // 这个分段正被别的线程占用, 换一个分段
+            h = Striped64.advanceProbe(h);
+        }
+    }
+
+    /**
+     * Returns the statistics of the values recorded so far. Each
+     * stripe is read consistently, but values recorded concurrently
+     * with the call may or may not be included.
+     *
+     * @return the summary
+     */
+    public Summary summary() {
+        long count = 0L, sum = 0L, min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for (Stripe s : stripes) {
+            long c, t, lo, hi, q;
+            for (int attempts = 0; ; ) {
+                q = s.seq;
+                if ((q & 1L) != 0L) {
+                    READER_BACKOFF.backoff(++attempts);
+                    continue;
+                }
+                c = s.count;
+                t = s.sum;
+                lo = s.min;
+                hi = s.max;
+                // 读字段不能越过第二次读 seq, 否则可能读到半更新的分段
+                VarHandle.acquireFence();
+                if (s.seq == q)
+                    break;
+            }
+            count += c;
+            sum += t;
+            min = Math.min(min, lo);
+            max = Math.max(max, hi);
+        }
+        return new Summary(count, sum, min, max);
+    }
+
+    /**
+     * Returns the statistics of the values recorded so far and clears
+     * them. Every recorded value is included in exactly one summary.
+     *
+     * @return the summary
+     */
+    public Summary summaryThenReset() {
+        long count = 0L, sum = 0L, min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for (Stripe s : stripes) {
+            long next;
+            for (int attempts = 0; (next = s.tryLock()) < 0L; )
+                READER_BACKOFF.backoff(++attempts);
+            count += s.count;
+            sum += s.sum;
+            min = Math.min(min, s.min);
+            max = Math.max(max, s.max);
+            s.count = 0L;
+            s.sum = 0L;
+            s.min = Long.MAX_VALUE;
+            s.max = Long.MIN_VALUE;
+            s.unlock(next);
+        }
+        return new Summary(count, sum, min, max);
+    }
+
+    /**
+     * Returns the String representation of the {@link #summary}.
+     *
+     * @return the String representation of the {@link #summary}
+     */
+    public String toString() {
+        return summary().toString();
+    }
+
+    /**
+     * Immutable count, sum, minimum, maximum and average of a set of
+     * values, with the conventions of {@link java.util.LongSummaryStatistics}:
+     * with no values, the minimum is {@code Long.MAX_VALUE}, the
+     * maximum {@code Long.MIN_VALUE} and the average zero.
+     */
+    public static final class Summary implements Serializable {
+        private static final long serialVersionUID = -6346170264755932411L;
+
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        Summary(long count, long sum, long min, long max) {
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getAverage() {
+            return count > 0L ? (double) sum / count : 0.0d;
+        }
+
+        /**
+         * Returns the summary of the values of both this and the given
+         * summary.
+         *
+         * @param other another summary
+         * @return the combined summary
+         */
+        public Summary combine(Summary other) {
+            return new Summary(count + other.count, sum + other.sum,
+                    Math.min(min, other.min), Math.max(max, other.max));
+        }
+
+        public String toString() {
+            return String.format("%s{count=%d, sum=%d, min=%d, average=%f, max=%d}",
+                    getClass().getSimpleName(), count, sum, min, getAverage(), max);
+        }
+    }
+
+    /**
+     * Serialization proxy, used to avoid serializing the stripes.
+     *
+     * @serial include
+     */
+    private static class SerializationProxy implements Serializable {
+        private static final long serialVersionUID = 4310719374569437193L;
+
+        /**
+         * The current value returned by summary().
+         *
+         * @serial
+         */
+        private final Summary summary;
+
+        SerializationProxy(LongSummaryAccumulator a) {
+            summary = a.summary();
+        }
+
+        private Object readResolve() {
+            LongSummaryAccumulator a = new LongSummaryAccumulator();
+            Stripe s = a.stripes[0];
+            s.count = summary.count;
+            s.sum = summary.sum;
+            s.min = summary.min;
+            s.max = summary.max;
+            return a;
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    /**
+     * @param s the stream
+     * @throws java.io.InvalidObjectException always
+     */
+    private void readObject(java.io.ObjectInputStream s)
+            throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("Proxy required");
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle SEQ;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            SEQ = l.findVarHandle(StripeFields.class, "seq", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
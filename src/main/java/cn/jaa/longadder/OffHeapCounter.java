@@ -0,0 +1,111 @@
+package cn.jaa.longadder;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 堆外计数器的轻量句柄, 只记住所在的表和下标
+ * <p>
+ * A handle on one striped counter living outside the Java heap, with
+ * the same {@code add}/{@code sum}/{@code sumThenReset} contract as
+ * {@link LongAdder}. The handle holds no state of its own; dropping it
+ * does not release the counter, and a handle must not be used after
+ * its counter has been freed, since the slot may already belong to
+ * someone else.
+ */
+public final class OffHeapCounter extends Number {
+    private static final long serialVersionUID = 3207496414815291617L;
+
+    private final transient StripedBuffer table;
+    private final int id;
+
+    OffHeapCounter(StripedBuffer table, int id) {
+        this.table = table;
+        this.id = id;
+    }
+
+    /**
+     * Returns the slot index of this counter in its arena or file.
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Adds the given value.
+     *
+     * @param x the value to add
+     */
+    public void add(long x) {
+        table.add(id, x);
+    }
+
+    /**
+     * Equivalent to {@code add(1)}.
+     */
+    public void increment() {
+        table.add(id, 1L);
+    }
+
+    /**
+     * Equivalent to {@code add(-1)}.
+     */
+    public void decrement() {
+        table.add(id, -1L);
+    }
+
+    /**
+     * Returns the current sum.  The returned value is <em>NOT</em> an
+     * atomic snapshot; concurrent updates that occur while the sum is
+     * being calculated might not be incorporated.
+     *
+     * @return the sum
+     */
+    public long sum() {
+        return table.sum(id);
+    }
+
+    /**
+     * Resets the counter to zero. Only effective if there are no
+     * concurrent updates.
+     */
+    public void reset() {
+        table.reset(id);
+    }
+
+    /**
+     * Equivalent in effect to {@link #sum} followed by {@link #reset},
+     * except that no concurrent update is lost: each stripe is read and
+     * cleared atomically.
+     *
+     * @return the sum
+     */
+    public long sumThenReset() {
+        return table.sumThenReset(id);
+    }
+
+    public String toString() {
+        return Long.toString(sum());
+    }
+
+    public long longValue() {
+        return sum();
+    }
+
+    public int intValue() {
+        return (int) sum();
+    }
+
+    public float floatValue() {
+        return (float) sum();
+    }
+
+    public double doubleValue() {
+        return (double) sum();
+    }
+
+    private Object writeReplace() {
+        LongAdder a = new LongAdder();
+        a.add(sum());
+        return a;
+    }
+}
@@ -0,0 +1,349 @@
+package cn.jaa.longadder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 同一台机器上多个进程共享的分段计数器, 放在共享内存映射文件里
+ * <p>
+ * Striped counters in a file mapped by several processes on one host,
+ * typically under {@code /dev/shm}, so that any process can read the
+ * host-wide total of a counter with {@link #sum} and no IPC.
+ * <pre>
+ *   try (SharedCounters c = SharedCounters.open(Paths.get("/dev/shm/app.counters"), 256, 16)) {
+ *       c.increment(REQUESTS);
+ *       long hostTotal = c.sum(REQUESTS);
+ *   }
+ * </pre>
+ * The model is Striped64's base plus cells, stretched across
+ * processes. Each process claims a <em>lane</em> when it opens the
+ * file, a private set of stripes for every counter, and its threads
+ * CAS only within that lane, so processes never contend with one
+ * another. Each counter also has a shared base. A lane's contents are
+ * folded into base when its process closes the file, which frees the
+ * lane for the next process. {@code sum} adds base and every lane.
+ * <p>
+ * A process that dies without closing keeps its lane, and the lane's
+ * values still count. A later process may take the lane over, once
+ * the recorded pid is no longer alive, and keeps counting on top of
+ * those values. Pid reuse by an unrelated process can keep such a lane
+ * reserved, though never lost.
+ * <p>
+ * File layout: a 64-byte header (magic, version, capacity, lanes,
+ * stripes), the lane owner table of one pid per lane, the base region
+ * and then one {@link StripedBuffer} region per lane, each starting on
+ * a 64-byte boundary. Creation and lane claims happen under a file lock.
+ */
+public class SharedCounters implements Closeable {
+
+    static final long MAGIC = 0x4a41415348525331L; // "JAASHRS1"
+    static final int VERSION = 2; // 2: 条带块按 128 字节填充
+    static final int HEADER_SIZE = 64;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int LANES_OFFSET = 16;
+    private static final int STRIPES_OFFSET = 20;
+
+    private static final long PID = ProcessHandle.current().pid();
+
+    private final Path path;
+    private final MappedByteBuffer buf;
+    private final int capacity;
+    private final int lanes;
+    private final StripedBuffer base;
+    private final StripedBuffer[] laneTables;
+    private final int lane;
+    private final StripedBuffer local;
+    private volatile boolean closed; // 只在 close() 里写, 持有 this
+
+    private SharedCounters(Path path, MappedByteBuffer buf, int capacity, int lanes,
+                           int stripes, int lane) {
+        this.path = path;
+        this.buf = buf;
+        this.capacity = capacity;
+        this.lanes = lanes;
+        int off = baseOffset(lanes);
+        this.base = new StripedBuffer(buf, off, capacity, 1);
+        off += align(StripedBuffer.regionSize(capacity, 1));
+        this.laneTables = new StripedBuffer[lanes];
+        for (int l = 0; l < lanes; l++) {
+            laneTables[l] = new StripedBuffer(buf, off, capacity, stripes);
+            off += align(StripedBuffer.regionSize(capacity, stripes));
+        }
+        this.lane = lane;
+        this.local = laneTables[lane];
+    }
+
+    private static int align(long size) {
+        return (int) ((size + 63L) & ~63L);
+    }
+
+    private static int baseOffset(int lanes) {
+        return HEADER_SIZE + align((long) lanes * Long.BYTES);
+    }
+
+    private static long fileSize(int capacity, int lanes, int stripes) {
+        return baseOffset(lanes) + (long) align(StripedBuffer.regionSize(capacity, 1))
+                + (long) lanes * align(StripedBuffer.regionSize(capacity, stripes));
+    }
+
+    /**
+     * Returns fileSize, or Long.MAX_VALUE if the shape cannot fit in one
+     * mapping, without overflowing on the way.
+     */
+    private static long checkedFileSize(int capacity, int lanes, int stripes) {
+        if ((long) capacity * stripes > Integer.MAX_VALUE
+                || StripedBuffer.regionSize(capacity, stripes) > Integer.MAX_VALUE - 63
+                || lanes > (Integer.MAX_VALUE - HEADER_SIZE - 63) / Long.BYTES)
+            return Long.MAX_VALUE;
+        return fileSize(capacity, lanes, stripes);
+    }
+
+    private static int ownerOffset(int lane) {
+        return HEADER_SIZE + lane * Long.BYTES;
+    }
+
+    /**
+     * Opens the shared counter file at the given path and claims a
+     * lane in it, creating the file with the given shape if it does
+     * not exist, with one stripe per CPU in each lane.
+     *
+     * @param path     the file, preferably on a memory file system
+     * @param capacity number of counters for a new file; an existing
+     *                 file must have at least this many
+     * @param lanes    maximum number of processes for a new file; an
+     *                 existing file keeps its lane and stripe counts
+     * @return the open file
+     * @throws IOException if the file cannot be mapped, is not a
+     *                     shared counter file of sufficient capacity, or has no free lane
+     */
+    public static SharedCounters open(Path path, int capacity, int lanes) throws IOException {
+        if (capacity <= 0 || lanes <= 0)
+            throw new IllegalArgumentException("capacity and lanes must be positive");
+        return open(path, capacity, lanes, Striped64.DEFAULT_MAX_CELLS, false);
+    }
+
+    /**
+     * Opens the shared counter file at the given path and claims a
+     * lane in it, creating the file with the given shape if it does
+     * not exist.
+     *
+     * @param path     the file, preferably on a memory file system
+     * @param capacity number of counters for a new file; an existing
+     *                 file must have at least this many
+     * @param lanes    maximum number of processes for a new file; an
+     *                 existing file keeps its lane count
+     * @param stripes  stripes per counter and lane, rounded up to a power
+     *                 of two; an existing file must have exactly this many
+     * @return the open file
+     * @throws IOException if the file cannot be mapped, is not a
+     *                     shared counter file of sufficient capacity and the
+     *                     requested stripe count, or has no free lane
+     */
+    public static SharedCounters open(Path path, int capacity, int lanes, int stripes)
+            throws IOException {
+        if (capacity <= 0 || lanes <= 0 || stripes <= 0)
+            throw new IllegalArgumentException("capacity, lanes and stripes must be positive");
+        return open(path, capacity, lanes, stripes, true);
+    }
+
+    private static SharedCounters open(Path path, int capacity, int lanes, int stripes,
+                                       boolean exactStripes) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = ch.lock();
+            try {
+                return openLocked(path, ch, capacity, lanes, stripes, exactStripes);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Creates or validates the file behind ch and claims a lane; runs
+     * under the file lock.
+     */
+    private static SharedCounters openLocked(Path path, FileChannel ch, int capacity, int lanes,
+                                             int stripes, boolean exactStripes) throws IOException {
+        MappedByteBuffer buf;
+        int cap, ls, n;
+        if (ch.size() == 0L) {
+            cap = capacity;
+            ls = lanes;
+            n = Striped64.tableSizeFor(stripes);
+            long size = checkedFileSize(cap, ls, n);
+            if (size > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("shared counter file too large: " + cap + " counters in "
+                        + ls + " lanes of " + n + " stripes exceed one 2GB mapping");
+            buf = ch.map(FileChannel.MapMode.READ_WRITE, 0L, size);
+            buf.order(ByteOrder.nativeOrder());
+            buf.putInt(VERSION_OFFSET, VERSION);
+            buf.putInt(CAPACITY_OFFSET, cap);
+            buf.putInt(LANES_OFFSET, ls);
+            buf.putInt(STRIPES_OFFSET, n);
+            buf.putLong(MAGIC_OFFSET, MAGIC);
+        } else {
+            if (ch.size() < HEADER_SIZE)
+                throw new IOException(path + ": not a shared counter file");
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+            ch.read(header, 0L);
+            if (header.getLong(MAGIC_OFFSET) != MAGIC)
+                throw new IOException(path + ": bad magic, not a shared counter file or wrong byte order");
+            if (header.getInt(VERSION_OFFSET) != VERSION)
+                throw new IOException(path + ": unsupported version " + header.getInt(VERSION_OFFSET));
+            cap = header.getInt(CAPACITY_OFFSET);
+            ls = header.getInt(LANES_OFFSET);
+            n = header.getInt(STRIPES_OFFSET);
+            if (cap <= 0 || ls <= 0 || n <= 0 || (n & (n - 1)) != 0)
+                throw new IOException(path + ": corrupt header, capacity " + cap
+                        + ", lanes " + ls + ", stripes " + n);
+            if (cap < capacity)
+                throw new IOException(path + ": holds " + cap + " counters, " + capacity + " requested");
+            if (exactStripes && n != Striped64.tableSizeFor(stripes))
+                throw new IOException(path + ": has " + n + " stripes per counter, "
+                        + Striped64.tableSizeFor(stripes) + " requested");
+            // 一次 map 最多 2GB, 先在这里拒绝, 否则 map 抛的是 IllegalArgumentException
+            long size = checkedFileSize(cap, ls, n);
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(path + ": " + cap + " counters in " + ls + " lanes of " + n
+                        + " stripes exceed the 2GB a single mapping can hold");
+            if (ch.size() < size)
+                throw new IOException(path + ": truncated");
+            buf = ch.map(FileChannel.MapMode.READ_WRITE, 0L, size);
+            buf.order(ByteOrder.nativeOrder());
+        }
+        int lane = claimLane(buf, ls);
+        if (lane < 0)
+            throw new IOException(path + ": all " + ls + " lanes are taken by live processes");
+        return new SharedCounters(path, buf, cap, ls, n, lane);
+    }
+
+    /**
+     * Takes the first lane that is free or whose owner has died.
+     */
+    private static int claimLane(ByteBuffer buf, int lanes) {
+        for (int l = 0; l < lanes; l++) {
+            int off = ownerOffset(l);
+            long owner = (long) StripedBuffer.LONGS.getVolatile(buf, off);
+            if (owner != 0L && isAlive(owner))
+                continue;
+            if (StripedBuffer.LONGS.compareAndSet(buf, off, owner, PID))
+                return l;
+        }
+        return -1;
+    }
+
+    private static boolean isAlive(long pid) {
+        return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    /**
+     * Returns the file this instance maps.
+     */
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * Returns the number of counters in the file.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the lane claimed by this process.
+     */
+    public int lane() {
+        return lane;
+    }
+
+    /**
+     * Adds x to counter id, in this process's lane.
+     *
+     * @throws IllegalStateException if this instance has been closed
+     */
+    public void add(int id, long x) {
+        ensureOpen();
+        local.add(id, x);
+    }
+
+    /**
+     * Equivalent to {@code add(id, 1)}.
+     *
+     * @throws IllegalStateException if this instance has been closed
+     */
+    public void increment(int id) {
+        ensureOpen();
+        local.add(id, 1L);
+    }
+
+    private void ensureOpen() {
+        // 与 close() 赛跑而落进 lane 的更新不会丢: lane 的值照样计入 sum,
+        // 后来接手该 lane 的进程在其上继续累加
+        if (closed)
+            throw new IllegalStateException(path + ": closed");
+    }
+
+    /**
+     * Returns the host-wide sum of counter id: base plus every lane.
+     * As with {@link LongAdder#sum}, concurrent updates, including
+     * those of other processes, might not be incorporated.
+     */
+    public long sum(int id) {
+        long sum = base.sum(id);
+        for (StripedBuffer t : laneTables)
+            sum += t.sum(id);
+        return sum;
+    }
+
+    /**
+     * Returns the part of counter id added by this process since it
+     * claimed its lane, plus whatever an earlier dead owner of the
+     * lane left in it.
+     */
+    public long localSum(int id) {
+        return local.sum(id);
+    }
+
+    /**
+     * Returns the host-wide sum of counter id and clears it in base and
+     * every lane, without losing concurrent updates.
+     */
+    public long sumThenReset(int id) {
+        long sum = base.sumThenReset(id);
+        for (StripedBuffer t : laneTables)
+            sum += t.sumThenReset(id);
+        return sum;
+    }
+
+    /**
+     * Folds this process's lane into base and releases the lane. Later
+     * updates through this instance throw IllegalStateException; the
+     * counters can still be read.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed)
+            return;
+        closed = true;
+        for (int id = 0; id < capacity; id++) {
+            long v = local.sumThenReset(id);
+            if (v != 0L)
+                base.add(id, v);
+        }
+        StripedBuffer.LONGS.compareAndSet(buf, ownerOffset(lane), PID, 0L);
+    }
+}
@@ -0,0 +1,283 @@
+package cn.jaa.longadder;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 每个线程独占一个槽位的累加器, 写路径上没有任何原子读-改-写指令
+ * <p>
+ * A sum maintained in one slot per updating thread. A thread gets its
+ * slot lazily on its first {@link #add} and is the only writer of it,
+ * so an update is a plain read of its own slot followed by a release
+ * store: no CAS, no locked instruction, no retry. {@link #sum} adds up
+ * the live slots plus the total left behind by threads that have
+ * died; slots of dead threads are folded into that total and dropped
+ * the next time a reader or a registering thread notices them.
+ * <p>
+ * Compared to {@link LongAdder}, updates are cheaper and never
+ * contended, but each (adder, thread) pair costs a slot and a
+ * {@link ThreadLocal} entry, and {@code sum()} is linear in the number
+ * of live threads that ever updated the adder. Slots are padded like
+ * Striped64's cells, so slots written by different threads never share
+ * a cache line wherever the collector places them.
+ * <p>
+ * Only the owner writes a slot, so there is no {@code reset} or
+ * {@code sumThenReset}: a reader cannot clear another thread's slot
+ * without an atomic read-modify-write on the writer's side. Use
+ * {@link LongAdder} when those are needed.
+ */
+public class SingleWriterLongAdder extends Number {
+    private static final long serialVersionUID = -1406330716224532340L;
+
+    /**
+     * The value of a slot, laid out after Striped64's left-hand cell
+     * padding.
+     */
+    abstract static class SlotValue extends Striped64.CellLhsPadding {
+        long value;
+    }
+
+    @SuppressWarnings("unused")
+    abstract static class SlotRhsPadding extends SlotValue {
+        long q00, q01, q02, q03, q04, q05, q06, q07;
+        long q08, q09, q10, q11, q12, q13, q14, q15;
+    }
+
+    /**
+     * A thread's private part of the sum. value is written only by
+     * owner, with plain reads and release stores, and read by others
+     * with acquire loads.
+     */
+    static final class Slot extends SlotRhsPadding {
+        final Thread owner;
+
+        Slot(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
+    private final transient ThreadLocal<Slot> local = ThreadLocal.withInitial(this::register);
+
+    /**
+     * Slots of threads that were alive when last checked. Replaced
+     * (copy-on-write) under lock.
+     */
+    private transient volatile Slot[] slots = new Slot[0];
+
+    /**
+     * Sum of the slots of dead threads. Written under lock, after
+     * slots, so a reader that sees a new retired value also sees the
+     * slots it was taken from removed.
+     */
+    private transient volatile long retired;
+
+    private final transient Object lock = new Object();
+
+    /**
+     * Creates a new adder with initial sum of zero.
+     */
+    public SingleWriterLongAdder() {
+    }
+
+    /**
+     * Adds the given value.
+     *
+     * @param x the value to add
+     */
+    public void add(long x) {
+        Slot s = local.get();
+        // 只有当前线程会写这个槽位: 普通读 + release 写, 不需要 CAS
+        VALUE.setRelease(s, s.value + x);
+    }
+
+    /**
+     * Equivalent to {@code add(1)}.
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Equivalent to {@code add(-1)}.
+     */
+    public void decrement() {
+        add(-1L);
+    }
+
+    /**
+     * Returns the current sum.  The returned value is <em>NOT</em> an
+     * atomic snapshot; invocation in the absence of concurrent
+     * updates returns an accurate result, but concurrent updates that
+     * occur while the sum is being calculated might not be
+     * incorporated. A thread that dies while the sum is being
+     * calculated may likewise be missed by that call, never counted
+     * twice.
+     *
+     * @return the sum
+     */
+    public long sum() {
+        // 先读 retired 再读 slots, 与 reap 中的写顺序相反, 保证死亡线程的值不会被算两次
+        long sum = retired;
+        boolean dead = false;
+        for (Slot s : slots) {
+            sum += (long) VALUE.getAcquire(s);
+            if (!s.owner.isAlive())
+                dead = true;
+        }
+        if (dead)
+            reap();
+        return sum;
+    }
+
+    /**
+     * Creates and publishes the calling thread's slot.
+     */
+    private Slot register() {
+        Slot s = new Slot(Thread.currentThread());
+        synchronized (lock) {
+            Slot[] ss = reapLocked();
+            ss = Arrays.copyOf(ss, ss.length + 1);
+            ss[ss.length - 1] = s;
+            slots = ss;
+        }
+        return s;
+    }
+
+    private void reap() {
+        synchronized (lock) {
+            reapLocked();
+        }
+    }
+
+    /**
+     * Folds the slots of dead threads into retired. Thread.isAlive()
+     * returning false happens-after everything the thread did, so the
+     * final value of its slot is visible here.
+     *
+     * @return the slots left
+     */
+    private Slot[] reapLocked() {
+        Slot[] ss = slots;
+        int live = 0;
+        long r = 0L;
+        Slot[] kept = new Slot[ss.length];
+        for (Slot s : ss) {
+            if (s.owner.isAlive())
+                kept[live++] = s;
+            else
+                r += (long) VALUE.getAcquire(s);
+        }
+        if (live == ss.length)
+            return ss;
+        kept = Arrays.copyOf(kept, live);
+        slots = kept;
+        retired = retired + r;
+        return kept;
+    }
+
+    /**
+     * Returns the number of threads currently holding a slot.
+     *
+     * @return the number of registered slots
+     */
+    public int slotCount() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the String representation of the {@link #sum}.
+     *
+     * @return the String representation of the {@link #sum}
+     */
+    public String toString() {
+        return Long.toString(sum());
+    }
+
+    /**
+     * Equivalent to {@link #sum}.
+     *
+     * @return the sum
+     */
+    public long longValue() {
+        return sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as an {@code int} after a narrowing
+     * primitive conversion.
+     */
+    public int intValue() {
+        return (int) sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as a {@code float}
+     * after a widening primitive conversion.
+     */
+    public float floatValue() {
+        return (float) sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as a {@code double} after a widening
+     * primitive conversion.
+     */
+    public double doubleValue() {
+        return (double) sum();
+    }
+
+    /**
+     * Serialization proxy; only the current sum is kept.
+     *
+     * @serial include
+     */
+    private static class SerializationProxy implements Serializable {
+        private static final long serialVersionUID = -1406330716224532340L;
+
+        /**
+         * The current value returned by sum().
+         *
+         * @serial
+         */
+        private final long value;
+
+        SerializationProxy(SingleWriterLongAdder a) {
+            value = a.sum();
+        }
+
+        private Object readResolve() {
+            SingleWriterLongAdder a = new SingleWriterLongAdder();
+            a.retired = value;
+            return a;
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    /**
+     * @param s the stream
+     * @throws java.io.InvalidObjectException always
+     */
+    private void readObject(java.io.ObjectInputStream s)
+            throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("Proxy required");
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            VALUE = l.findVarHandle(SlotValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package cn.jaa.longadder;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 滑动窗口计数器: 按时间分桶的 LongAdder 环, 访问时惰性轮转, 不需要定时线程
+ * <p>
+ * Counts events over the most recent window, for example requests in
+ * the last ten seconds at 100ms resolution, and reports them as a
+ * rate. The window is a ring of buckets, each a {@link LongAdder}
+ * tagged with the time slice it currently counts. There is no
+ * scheduler thread: whoever first touches a bucket whose slice has
+ * expired resets it in place for the current slice, so buckets are
+ * reused and nothing is allocated after construction.
+ * <pre>
+ *   SlidingWindowCounter qps = new SlidingWindowCounter(10, TimeUnit.SECONDS, 100);
+ *   qps.increment();                 // per request
+ *   double rate = qps.ratePerSecond();
+ * </pre>
+ * {@link #increment} reads the clock and the bucket's slice before
+ * {@code LongAdder.increment}; {@link #sum} and {@link #ratePerSecond}
+ * walk the ring once. An update racing with the reset of its bucket
+ * may be counted in the new slice instead of the expiring one, and a
+ * thread that was descheduled for longer than a slice counts into the
+ * current slice; neither loses events.
+ */
+public class SlidingWindowCounter {
+
+    /**
+     * Slice tag of a bucket being reset.
+     */
+    private static final long RESETTING = Long.MIN_VALUE;
+
+    /**
+     * Slice tag of a bucket never used.
+     */
+    private static final long UNUSED = Long.MIN_VALUE + 1;
+
+    static final class Bucket {
+        final LongAdder count = new LongAdder();
+        volatile long slice = UNUSED;
+    }
+
+    private final Bucket[] ring;
+    private final long sliceNanos;
+    private final long windowNanos;
+
+    /**
+     * Creates a counter over the given window, divided into the given
+     * number of buckets.
+     *
+     * @param window  the window length
+     * @param unit    the unit of {@code window}
+     * @param buckets the number of buckets; the window slides in steps
+     *                of {@code window / buckets}
+     * @throws IllegalArgumentException if either count is not positive
+     *                                  or a bucket would be shorter than a nanosecond
+     */
+    public SlidingWindowCounter(long window, TimeUnit unit, int buckets) {
+        if (window <= 0L || buckets <= 0)
+            throw new IllegalArgumentException("window and buckets must be positive");
+        long nanos = unit.toNanos(window);
+        if (nanos < buckets)
+            throw new IllegalArgumentException("buckets shorter than 1ns");
+        this.sliceNanos = nanos / buckets;
+        this.windowNanos = sliceNanos * buckets;
+        this.ring = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++)
+            ring[i] = new Bucket();
+    }
+
+    /**
+     * Adds the given value to the current bucket.
+     *
+     * @param x the value to add
+     */
+    public void add(long x) {
+        long s = Math.floorDiv(System.nanoTime(), sliceNanos);
+        Bucket b = ring[(int) Math.floorMod(s, (long) ring.length)];
+        if (b.slice != s)
+            rotate(b, s);
+        b.count.add(x);
+    }
+
+    /**
+     * Equivalent to {@code add(1)}.
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Makes bucket b count slice s, unless it already counts s or a
+     * later slice.
+     */
+    private static void rotate(Bucket b, long s) {
+        for (; ; ) {
+            long cur = b.slice;
+            if (cur == RESETTING) {
+                Thread.onSpinWait();
+            } else if (cur >= s) {
+                return;   // 已经轮转过, 或者本线程的时间已经落后, 计入当前桶
+            } else if (SLICE.compareAndSet(b, cur, RESETTING)) {
+                b.count.sumThenReset();
+                b.slice = s;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of events in the window ending now: the
+     * {@code buckets - 1} full buckets before the current one plus the
+     * current, partial one. The time this covers therefore lies between
+     * {@code window - window / buckets} and {@code window}.
+     *
+     * @return the windowed sum
+     */
+    public long sum() {
+        return sum(Math.floorDiv(System.nanoTime(), sliceNanos));
+    }
+
+    /**
+     * Sums the buckets tagged with a slice in (s - buckets, s].
+     */
+    private long sum(long s) {
+        long oldest = s - ring.length;
+        long sum = 0L;
+        for (Bucket b : ring) {
+            long t = b.slice;
+            if (t > oldest && t <= s)
+                sum += b.count.sum();
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the average number of events per second over the window,
+     * that is {@link #sum} divided by the time its buckets actually
+     * cover: the full buckets plus the elapsed part of the current one.
+     *
+     * @return the windowed rate
+     */
+    public double ratePerSecond() {
+        long now = System.nanoTime();
+        long s = Math.floorDiv(now, sliceNanos);
+        // 当前桶只走过了一部分, 按实际覆盖的时间折算, 否则速率会少算最多一个桶
+        long covered = (ring.length - 1) * sliceNanos + Math.floorMod(now, sliceNanos);
+        return sum(s) * (double) TimeUnit.SECONDS.toNanos(1L) / Math.max(covered, 1L);
+    }
+
+    /**
+     * Returns the window length in nanoseconds.
+     */
+    public long windowNanos() {
+        return windowNanos;
+    }
+
+    /**
+     * Returns the String representation of the {@link #sum}.
+     *
+     * @return the String representation of the {@link #sum}
+     */
+    public String toString() {
+        return Long.toString(sum());
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle SLICE;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            SLICE = l.findVarHandle(Bucket.class, "slice", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package cn.jaa.longadder;
+
+import java.io.Serializable;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 支持一致性快照读的累加器: 读者切换代并等待旧代的写者离开, 不阻塞写者
+ * <p>
+ * A {@link LongAdder} variant whose {@link #snapshot} is an atomic
+ * snapshot: it returns the sum of exactly the updates that completed
+ * before some instant during the call, across base and all cells.
+ * {@link #sum} keeps the weaker {@code LongAdder} contract.
+ * <p>
+ * Updates go to the active one of two generations, each a LongAdder
+ * for the value plus two LongAdders counting writers that entered and
+ * exited it. A writer bumps {@code entered}, checks that its
+ * generation is still active, adds its value only if so, and bumps
+ * {@code exited}; if the generation was retired meanwhile it backs out
+ * and retries on the new one. {@code snapshot} switches the active
+ * generation, which is the instant of the snapshot, then spins until
+ * {@code exited} catches up with {@code entered} on the retired
+ * generation. From then on no value can reach it. Writers never wait:
+ * at worst one retries once per snapshot.
+ * <p>
+ * The price is paid on every update: three striped increments instead
+ * of one, all on the calling thread's own cells, so they stay
+ * uncontended under the same conditions as a plain LongAdder. Use
+ * this class only where consistent reads are needed.
+ */
+public class SnapshotLongAdder extends Number implements Serializable {
+    private static final long serialVersionUID = -1658216356637640137L;
+
+    private static final class Generation {
+        final LongAdder value = new LongAdder();
+        final LongAdder entered = new LongAdder();
+        final LongAdder exited = new LongAdder();
+
+        /**
+         * True once no writer is inside. Reads exited before entered:
+         * both only grow and each non-atomic sum lies between its
+         * values at the start and end of the read, so equality means
+         * exited had caught up with entered when it was read.
+         */
+        boolean quiescent() {
+            long out = exited.sum();
+            return out == entered.sum();
+        }
+
+        /**
+         * Spins until quiescent, yielding now and then in case the
+         * writer still inside has been descheduled.
+         */
+        void awaitQuiescent() {
+            for (int spins = 0; !quiescent(); spins++) {
+                if ((spins & 63) == 63)
+                    Thread.yield();
+                else
+                    Thread.onSpinWait();
+            }
+        }
+    }
+
+    private final Generation g0 = new Generation();
+    private final Generation g1 = new Generation();
+
+    /**
+     * The generation taking updates.
+     */
+    private volatile Generation active = g0;
+
+    /**
+     * Sum of all retired generations' values. Written only under the
+     * lock of this adder.
+     */
+    private volatile long sealed;
+
+    /**
+     * Odd while snapshot moves a retired generation's value into
+     * sealed, so that sum sees either both sides of the move or
+     * neither. Written only under the lock of this adder.
+     */
+    private volatile int moving;
+
+    /**
+     * Creates a new adder with initial sum of zero.
+     */
+    public SnapshotLongAdder() {
+    }
+
+    /**
+     * Adds the given value.
+     *
+     * @param x the value to add
+     */
+    public void add(long x) {
+        for (; ; ) {
+            Generation g = active;
+            g.entered.increment();
+            // 进入之后再确认一次: 读者切换代发生在进入之前, 则退出重试
+            if (active == g) {
+                g.value.add(x);
+                g.exited.increment();
+                return;
+            }
+            g.exited.increment();
+        }
+    }
+
+    /**
+     * Equivalent to {@code add(1)}.
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Equivalent to {@code add(-1)}.
+     */
+    public void decrement() {
+        add(-1L);
+    }
+
+    /**
+     * Returns the current sum. As with {@link LongAdder#sum}, this is
+     * <em>not</em> an atomic snapshot, but it does not interfere with
+     * writers at all. It never counts a retired generation twice or
+     * not at all: a read that overlaps a {@link #snapshot} moving one
+     * into the sealed total is retried.
+     *
+     * @return the sum
+     */
+    public long sum() {
+        for (int spins = 0; ; spins++) {
+            int m = moving;
+            if ((m & 1) == 0) {
+                long s = sealed + g0.value.sum() + g1.value.sum();
+                if (moving == m)
+                    return s;
+            }
+            if ((spins & 63) == 63)
+                Thread.yield();
+            else
+                Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Returns an atomic snapshot of the sum: every update that
+     * completed before this call began is included, none that started
+     * after it returned is, and the result equals the sum at a single
+     * instant in between. Concurrent snapshots are serialized; writers
+     * are never blocked.
+     *
+     * @return the sum at the instant of the snapshot
+     */
+    public synchronized long snapshot() {
+        Generation old = active;
+        Generation next = (old == g0) ? g1 : g0;
+        // next 在上一次快照时已经静止并清空; 先确认上一次之后的退出者都已离开
+        next.awaitQuiescent();
+        active = next;
+        old.awaitQuiescent();
+        // old 已静止, 其值不再变化; 转入 sealed 和清空之间 moving 为奇数, sum() 会重读
+        long s = sealed + old.value.sum();
+        moving++;
+        sealed = s;
+        old.value.reset();
+        moving++;
+        return s;
+    }
+
+    /**
+     * Returns the String representation of the {@link #sum}.
+     *
+     * @return the String representation of the {@link #sum}
+     */
+    public String toString() {
+        return Long.toString(sum());
+    }
+
+    /**
+     * Equivalent to {@link #sum}.
+     *
+     * @return the sum
+     */
+    public long longValue() {
+        return sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as an {@code int} after a narrowing
+     * primitive conversion.
+     */
+    public int intValue() {
+        return (int) sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as a {@code float}
+     * after a widening primitive conversion.
+     */
+    public float floatValue() {
+        return (float) sum();
+    }
+
+    /**
+     * Returns the {@link #sum} as a {@code double} after a widening
+     * primitive conversion.
+     */
+    public double doubleValue() {
+        return (double) sum();
+    }
+
+    /**
+     * Serialization proxy, used to avoid reference to the internal
+     * generations in serialized forms.
+     *
+     * @serial include
+     */
+    private static class SerializationProxy implements Serializable {
+        private static final long serialVersionUID = -1658216356637640137L;
+
+        /**
+         * The value returned by snapshot().
+         *
+         * @serial
+         */
+        private final long value;
+
+        SerializationProxy(SnapshotLongAdder a) {
+            value = a.snapshot();
+        }
+
+        private Object readResolve() {
+            SnapshotLongAdder a = new SnapshotLongAdder();
+            a.sealed = value;
+            return a;
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    /**
+     * @param s the stream
+     * @throws java.io.InvalidObjectException always
+     */
+    private void readObject(java.io.ObjectInputStream s)
+            throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("Proxy required");
+    }
+}
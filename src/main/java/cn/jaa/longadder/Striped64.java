@@ -35,10 +35,13 @@
 
 package cn.jaa.longadder;
 
+import cn.jaa.cas.Backoff;
+
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import java.util.Arrays;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.LongBinaryOperator;
 
@@ -57,7 +60,7 @@ abstract class Striped64 extends Number {
      * accessed directly by subclasses.
      *
      * Table entries are of class Cell; a variant of AtomicLong padded
-     * (via @Contended) to reduce cache contention. Padding is
+     * to reduce cache contention. Padding is
      * overkill for most Atomics because they are usually irregularly
      * scattered in memory and thus don't interfere much with each
      * other. But Atomic objects residing in arrays will tend to be
@@ -65,14 +68,25 @@ abstract class Striped64 extends Number {
      * cache lines (with a huge negative performance impact) without
      * this precaution.
      *
+     * The padding is done by field inheritance (CellLhsPadding ->
+     * CellValue -> CellRhsPadding -> Cell) rather than @Contended:
+     * the JVM ignores @Contended outside the JDK unless started with
+     * -XX:-RestrictContended, while superclass fields are always laid
+     * out before subclass fields, so 128 bytes on each side of value
+     * keep it off any line (or adjacent-line prefetch pair) shared
+     * with a neighbouring Cell on a stock JVM.
+     *
      * In part because Cells are relatively large, we avoid creating
      * them until they are needed.  When there is no contention, all
      * updates are made to the base field.  Upon first contention (a
-     * failed CAS on base update), the table is initialized to size 2.
-     * The table size is doubled upon further contention until
-     * reaching the nearest power of two greater than or equal to the
-     * number of CPUS. Table slots remain empty (null) until they are
-     * needed.
+     * failed CAS on base update), the table is initialized to size
+     * initialCells (2 by default).  The table size is doubled upon
+     * further contention until reaching maxCells, by default the
+     * nearest power of two greater than or equal to the number of
+     * CPUS. Both may be set per instance (see LongAdder.Builder), and
+     * maxCells may exceed NCPU for pools with more runnable threads
+     * than CPUs. Table slots remain empty (null) until they are
+     * needed, unless the instance was presized.
      *
      * A single spinlock ("cellsBusy") is used for initializing and
      * resizing the table, as well as populating slots with new Cells.
@@ -82,7 +96,11 @@ abstract class Striped64 extends Number {
      * which is still better than alternatives.
      *
      * The Thread probe fields maintained via ThreadLocalRandom serve
-     * as per-thread hash codes. We let them remain uninitialized as
+     * as per-thread hash codes. Outside the JDK that field can only be
+     * reached with --add-opens java.base/java.lang; when it cannot
+     * (or when -Dcn.jaa.longadder.probe=local is set) we fall back to
+     * LocalProbe, a ThreadLocal owned by this package that is seeded
+     * and advanced the same way. We let them remain uninitialized as
      * zero (if they come in this way) until they contend at slot
      * 0. They are then initialized to values that typically do not
      * often conflict with others.  Contention and/or table collisions
@@ -113,7 +131,62 @@ abstract class Striped64 extends Number {
      * under the assumption that for long-running instances, observed
      * contention levels will recur, so the cells will eventually be
      * needed again; and for short-lived ones, it does not matter.
+     *
+     * The exception is opt-in deflation (deflateNanos != 0, additive
+     * updates only), for callers that keep very many adders whose
+     * contention comes in bursts. Readers notice that the cells have
+     * not changed for deflateNanos and, under cellsBusy, detach the
+     * table (cells = null) and drain every Cell with getAndSet(0)
+     * into base. A writer may still CAS a Cell of the detached table
+     * after it was drained; so in this mode every successful Cell
+     * CAS made outside the lock is followed by a recheck of cells,
+     * and a writer that finds the table replaced drains its own Cell
+     * into base (rescue).  Each unit moved this way is taken by
+     * exactly one getAndSet, so nothing is lost or counted twice.
+     * Between a Cell's getAndSet and the add to base, the unit is in
+     * neither; so deflation makes deflateSeq odd for its duration, and
+     * readers summing base and cells retry unless it was the same even
+     * value before and after their reads.
+     * The table is re-created by the usual path on the next
+     * contention.
+     *
+     * Optionally (stats != null) the slow paths count base and Cell
+     * CAS failures, rehashes, table initializations and expansions,
+     * and failures to take cellsBusy. The field is final and only
+     * read inside longAccumulate/doubleAccumulate, so instances that
+     * do not record pay nothing on the fast path.
+     *
+     * Likewise optional (backoff != null), a cn.jaa.cas.Backoff policy
+     * is consulted after every rehash and every failed base CAS in
+     * the same loops, with the count of failures so far in this call.
+     * Without one, failed attempts are retried at once.
+     */
+
+    /**
+     * Padding placed before {@link CellValue#value}: 16 longs, i.e.
+     * 128 bytes, enough for two 64-byte lines or one 128-byte line.
      */
+    @SuppressWarnings("unused")
+    abstract static class CellLhsPadding {
+        long p00, p01, p02, p03, p04, p05, p06, p07;
+        long p08, p09, p10, p11, p12, p13, p14, p15;
+    }
+
+    /**
+     * The only field a Cell really needs.
+     */
+    abstract static class CellValue extends CellLhsPadding {
+        volatile long value;
+    }
+
+    /**
+     * Padding placed after {@link CellValue#value}.
+     */
+    @SuppressWarnings("unused")
+    abstract static class CellRhsPadding extends CellValue {
+        long q00, q01, q02, q03, q04, q05, q06, q07;
+        long q08, q09, q10, q11, q12, q13, q14, q15;
+    }
 
     /**
      * Padded variant of AtomicLong supporting only raw accesses plus CAS.
@@ -121,9 +194,7 @@ abstract class Striped64 extends Number {
      * JVM intrinsics note: It would be possible to use a release-only
      * form of CAS here, if it were provided.
      */
-    @jdk.internal.vm.annotation.Contended
-    static final class Cell {
-        volatile long value;
+    static final class Cell extends CellRhsPadding {
 
         Cell(long x) {
             value = x;
@@ -151,7 +222,7 @@ abstract class Striped64 extends Number {
         static {
             try {
                 MethodHandles.Lookup l = MethodHandles.lookup();
-                VALUE = l.findVarHandle(Cell.class, "value", long.class);
+                VALUE = l.findVarHandle(CellValue.class, "value", long.class);
             } catch (ReflectiveOperationException e) {
                 throw new ExceptionInInitializerError(e);
             }
@@ -164,6 +235,22 @@ abstract class Striped64 extends Number {
     // 表示当前计算机cpu数量.  控制 cells 数组长度的一个关键条件
     static final int NCPU = Runtime.getRuntime().availableProcessors();
 
+    /**
+     * Largest table size; a power of two that still fits an array.
+     */
+    static final int MAXIMUM_CELLS = 1 << 30;
+
+    /**
+     * Table size used on first contention unless configured otherwise.
+     */
+    static final int DEFAULT_INITIAL_CELLS = 2;
+
+    /**
+     * Table size cap unless configured otherwise: the nearest power of
+     * two greater than or equal to NCPU, and at least the initial size.
+     */
+    static final int DEFAULT_MAX_CELLS = Math.max(DEFAULT_INITIAL_CELLS, tableSizeFor(NCPU));
+
     /**
      * Table of cells. When non-null, size is a power of 2.
      */
@@ -182,10 +269,104 @@ abstract class Striped64 extends Number {
      */
     transient volatile int cellsBusy;
 
+    /**
+     * Size of the table created on first contention. A power of two.
+     */
+    final int initialCells;
+
+    /**
+     * Size beyond which the table is no longer doubled. A power of
+     * two, not less than initialCells.
+     */
+    final int maxCells;
+
+    /**
+     * Quiet period after which readers fold the cells back into base,
+     * or 0 if this instance never deflates.
+     */
+    final long deflateNanos;
+
+    /**
+     * Contention counters updated from the slow paths, or null if
+     * this instance does not record them. Never touched by the
+     * uncontended fast paths.
+     */
+    final ContentionStats stats;
+
+    /**
+     * What longAccumulate and doubleAccumulate do after each failed
+     * attempt in their retry loop, or null to retry at once as
+     * before. Never touched by the uncontended fast paths.
+     */
+    final Backoff backoff;
+
+    /**
+     * Sum of the cells last seen by a reader, and when it last changed.
+     * Only used for deflation; written racily by readers, which is
+     * harmless since a wrong guess merely deflates early or late.
+     */
+    transient long lastCellSum;
+    transient long quietSince;
+
+    /**
+     * Odd while tryDeflate is moving the cells into base. Readers that
+     * add base and cells retry if it changed under them, since the
+     * move cannot be seen atomically.
+     */
+    transient volatile int deflateSeq;
+
     /**
      * Package-private default constructor.
      */
     Striped64() {
+        this(0L);
+    }
+
+    /**
+     * Creates an instance that deflates after the given quiet period,
+     * or never if it is 0.
+     */
+    Striped64(long deflateNanos) {
+        this(DEFAULT_INITIAL_CELLS, DEFAULT_MAX_CELLS, deflateNanos, null, null);
+    }
+
+    /**
+     * Creates an instance with the given table sizes, both of which
+     * must already be powers of two with initialCells <= maxCells,
+     * recording contention into stats unless it is null and waiting
+     * with backoff between failed attempts unless it is null.
+     */
+    Striped64(int initialCells, int maxCells, long deflateNanos,
+              ContentionStats stats, Backoff backoff) {
+        this.initialCells = initialCells;
+        this.maxCells = maxCells;
+        this.deflateNanos = deflateNanos;
+        this.stats = stats;
+        this.backoff = backoff;
+    }
+
+    /**
+     * Returns the smallest power of two not less than n, clamped to
+     * [1, MAXIMUM_CELLS].
+     */
+    static final int tableSizeFor(int n) {
+        if (n <= 1)
+            return 1;
+        if (n >= MAXIMUM_CELLS)
+            return MAXIMUM_CELLS;
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /**
+     * Installs a full table of initialCells cells, each holding the
+     * given value, so that the first contended updates find their
+     * cells ready. Only for use from constructors.
+     */
+    final void presize(long identity) {
+        Cell[] rs = new Cell[initialCells];
+        for (int i = 0; i < rs.length; i++)
+            rs[i] = new Cell(identity);
+        cells = rs;
     }
 
     /**
@@ -207,13 +388,92 @@ abstract class Striped64 extends Number {
         return CELLSBUSY.compareAndSet(this, 0, 1);
     }
 
+    /**
+     * Called by readers with the sum of the cells they just read;
+     * deflates once that sum has stayed unchanged for deflateNanos.
+     *
+     * @return true if a table was dropped
+     */
+    final boolean deflateIfQuiet(long cellSum) {
+        long now = System.nanoTime();
+        if (cellSum != lastCellSum) {
+            lastCellSum = cellSum;
+            quietSince = now;
+        } else if (now - quietSince >= deflateNanos)
+            return tryDeflate();
+        return false;
+    }
+
+    /**
+     * Detaches the cell table and folds its cells into base. Only
+     * valid when deflateNanos != 0, since writers rescue values that
+     * land in a detached cell only in that mode.
+     *
+     * @return true if a table was dropped
+     */
+    final boolean tryDeflate() {
+        Cell[] cs;
+        if (deflateNanos == 0L || (cs = cells) == null ||
+                cellsBusy != 0 || !casCellsBusy())
+            return false;
+        try {
+            if (cells != cs)
+                return false;
+            // 搬运期间 seq 为奇数: 值已从 Cell 取出但还没加到 base 时, 读者会重读
+            int q = deflateSeq;
+            deflateSeq = q + 1;
+            // 先摘掉 cells, 之后仍写到旧 Cell 上的线程会发现 cells != cs, 自己把值搬回 base
+            cells = null;
+            long v = 0L;
+            for (Cell c : cs)
+                if (c != null)
+                    v += c.getAndSet(0L);
+            addToBase(v);
+            deflateSeq = q + 2;
+            quietSince = System.nanoTime();
+        } finally {
+            cellsBusy = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Moves whatever is in the given cell into base. Used by writers
+     * whose successful CAS may have hit a table already drained by
+     * {@link #tryDeflate}.
+     */
+    final void rescue(Cell c) {
+        addToBase(c.getAndSet(0L));
+    }
+
+    private void addToBase(long x) {
+        long b;
+        if (x != 0L)
+            while (!casBase(b = base, b + x)) ;
+    }
+
     /**
      * Returns the probe value for the current thread.
      * Duplicated from ThreadLocalRandom because of packaging restrictions.
      * 获取当前线程的hash值
      */
     static final int getProbe() {
-        return (int) THREAD_PROBE.get(Thread.currentThread());
+        // THREAD_PROBE 是 static final, JIT 会把这个分支折叠掉, 热路径上只剩一种探针的读取
+        if (THREAD_PROBE != null)
+            return (int) THREAD_PROBE.get(Thread.currentThread());
+        return LocalProbe.get();
+    }
+
+    /**
+     * Initializes the probe value for the current thread, after which
+     * {@link #getProbe} returns a nonzero value.
+     * 给当前线程分配hash值
+     */
+    static final void initProbe() {
+        if (THREAD_PROBE != null)
+            ThreadLocalRandom.current();
+        else
+            LocalProbe.init();
     }
 
     /**
@@ -226,10 +486,42 @@ abstract class Striped64 extends Number {
         probe ^= probe << 13;   // xorshift
         probe ^= probe >>> 17;
         probe ^= probe << 5;
-        THREAD_PROBE.set(Thread.currentThread(), probe);
+        if (THREAD_PROBE != null)
+            THREAD_PROBE.set(Thread.currentThread(), probe);
+        else
+            LocalProbe.set(probe);
         return probe;
     }
 
+    /**
+     * Per-thread probe used when Thread.threadLocalRandomProbe is not
+     * accessible. Seeds come from the same Weyl sequence as
+     * ThreadLocalRandom's probeGenerator, so initial probes spread the
+     * same way; the value is kept in an int[1] so advanceProbe does
+     * not box.
+     */
+    static final class LocalProbe {
+        private static final int PROBE_INCREMENT = 0x9e3779b9;
+        private static final AtomicInteger PROBE_GENERATOR = new AtomicInteger();
+        private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> new int[1]);
+
+        private LocalProbe() {
+        }
+
+        static int get() {
+            return PROBE.get()[0];
+        }
+
+        static void set(int probe) {
+            PROBE.get()[0] = probe;
+        }
+
+        static void init() {
+            int p = PROBE_GENERATOR.addAndGet(PROBE_INCREMENT);
+            PROBE.get()[0] = (p == 0) ? 1 : p; // skip 0
+        }
+    }
+
     /**
      * Handles cases of updates involving initialization, resizing,
      * creating new Cells, and/or contention. See above for
@@ -250,12 +542,21 @@ abstract class Striped64 extends Number {
     // wasUncontended：只有cells初始化之后，并且当前线程 竞争修改失败，才会返回false
     final void longAccumulate(long x, LongBinaryOperator fn,
                               boolean wasUncontended) {
+        final ContentionStats st = stats;
+        final Backoff bo = backoff;
+        int attempts = 0;
+        if (st != null) {
+            if (!wasUncontended)
+                st.cellCasFailed();     // 调用方 CAS cell 失败
+            else if (cells == null)
+                st.baseCasFailed();     // 调用方 CAS base 失败
+        }
         // h 表示线程的hash值
         int h;
         // 条件成立：说明当前线程 还未分配hash值
         if ((h = getProbe()) == 0) {
             // 给当前线程分配hash值
-            ThreadLocalRandom.current(); // force initialization
+            initProbe(); // force initialization
             // 取出当前线程的hash值 赋值给h
             h = getProbe();
             // why? 因为默认情况下 当前线程 肯定时写入到了cells[0]位置.  不把它当作一次真正的竞争
@@ -307,6 +608,9 @@ abstract class Striped64 extends Number {
                             continue;           // Slot is now non-empty
                         }
                     }
+                    // 没有拿到锁
+                    if (st != null)
+                        st.cellsBusyFailed();
                     // 扩容意向 强制改为false, 不扩容
                     collide = false;
                 }
@@ -317,35 +621,51 @@ abstract class Striped64 extends Number {
                     // true -> 写成功, 退出循环
                     // false -> 表示rehash之后命中的新的cell 也有竞争 重试1次   再重试1次
                 else if (c.cas(v = c.value,
-                        (fn == null) ? v + x : fn.applyAsLong(v, x)))
+                        (fn == null) ? v + x : fn.applyAsLong(v, x))) {
+                    // 开启收缩时, 写完后 cells 已被替换说明可能写进了被摘掉的表
+                    if (deflateNanos != 0L && cells != cs)
+                        rescue(c);
                     break;
+                } else {
+                    // CASE 1.3 的 CAS 失败了
+                    if (st != null)
+                        st.cellCasFailed();
                     // CASE 1.4:
-                    // 条件1: n >= NCPU true -> 扩容意向 改为false, 表示不扩容了  false -> 说明cells数组还可扩容
+                    // 条件1: n >= maxCells true -> 扩容意向 改为false, 表示不扩容了  false -> 说明cells数组还可扩容
                     // 条件2: cells != cs true -> 表示其他线程已经扩容过,当前线程rehash之后重试即可
-                else if (n >= NCPU || cells != cs)
-                    // 扩容意向 改为false, 表示不扩容了
-                    collide = false;            // At max size or stale
-                    // CASE 1.5:
-                    // !collide == true 设置扩容意向为true, 但是不一定真的发生扩容
-                else if (!collide)
-                    collide = true;
-                    // CASE 1.6: 真正扩容的逻辑
-                    // 条件1: cellsBusy == 0 true->表示当前无锁状态,当前线程可以去竞争这把锁
-                    // 条件2: casCellsBusy() true->表示当前线程获取锁 成功, 可以执行扩容逻辑  false->表示当前时刻有其他线程做扩容相关操作
-                else if (cellsBusy == 0 && casCellsBusy()) {
-                    try {
-                        // cells == cs 防止其他线成已经扩容,当前线程再次扩容
-                        if (cells == cs)        // Expand table unless stale
-                            cells = Arrays.copyOf(cs, n << 1);
-                    } finally {
-                        // 释放锁
-                        cellsBusy = 0;
-                    }
-                    collide = false;
-                    continue;                   // Retry with expanded table
+                    if (n >= maxCells || cells != cs)
+                        // 扩容意向 改为false, 表示不扩容了
+                        collide = false;            // At max size or stale
+                        // CASE 1.5:
+                        // !collide == true 设置扩容意向为true, 但是不一定真的发生扩容
+                    else if (!collide)
+                        collide = true;
+                        // CASE 1.6: 真正扩容的逻辑
+                        // 条件1: cellsBusy == 0 true->表示当前无锁状态,当前线程可以去竞争这把锁
+                        // 条件2: casCellsBusy() true->表示当前线程获取锁 成功, 可以执行扩容逻辑  false->表示当前时刻有其他线程做扩容相关操作
+                    else if (cellsBusy == 0 && casCellsBusy()) {
+                        try {
+                            // cells == cs 防止其他线成已经扩容,当前线程再次扩容
+                            if (cells == cs) {      // Expand table unless stale
+                                cells = Arrays.copyOf(cs, n << 1);
+                                if (st != null)
+                                    st.tableExpanded();
+                            }
+                        } finally {
+                            // 释放锁
+                            cellsBusy = 0;
+                        }
+                        collide = false;
+                        continue;                   // Retry with expanded table
+                    } else if (st != null)
+                        st.cellsBusyFailed();
                 }
                 // 重置当前线程的hash值
                 h = advanceProbe(h);
+                if (st != null)
+                    st.rehashed();
+                if (bo != null)
+                    bo.backoff(++attempts);
             }
             // CASE2: 前置条件cells还未初始化 cs为null
             // 条件一: true 表示当前未加锁
@@ -355,9 +675,11 @@ abstract class Striped64 extends Number {
                 try {                           // Initialize table
                     // cells == cs? 防止其他线程已经初始化了, 当前线程再次初始化, 防止丢失数据
                     if (cells == cs) {
-                        Cell[] rs = new Cell[2];
-                        rs[h & 1] = new Cell(x);
+                        Cell[] rs = new Cell[initialCells];
+                        rs[h & (initialCells - 1)] = new Cell(x);
                         cells = rs;
+                        if (st != null)
+                            st.tableInitialized();
                         break done;
                     }
                 } finally {
@@ -371,6 +693,12 @@ abstract class Striped64 extends Number {
             else if (casBase(v = base,
                     (fn == null) ? v + x : fn.applyAsLong(v, x)))
                 break done;
+            else {
+                if (st != null)
+                    st.baseCasFailed();
+                if (bo != null)
+                    bo.backoff(++attempts);
+            }
         }
     }
 
@@ -388,9 +716,18 @@ abstract class Striped64 extends Number {
      */
     final void doubleAccumulate(double x, DoubleBinaryOperator fn,
                                 boolean wasUncontended) {
+        final ContentionStats st = stats;
+        final Backoff bo = backoff;
+        int attempts = 0;
+        if (st != null) {
+            if (!wasUncontended)
+                st.cellCasFailed();
+            else if (cells == null)
+                st.baseCasFailed();
+        }
         int h;
         if ((h = getProbe()) == 0) {
-            ThreadLocalRandom.current(); // force initialization
+            initProbe(); // force initialization
             h = getProbe();
             wasUncontended = true;
         }
@@ -421,32 +758,48 @@ abstract class Striped64 extends Number {
                             continue;           // Slot is now non-empty
                         }
                     }
+                    if (st != null)
+                        st.cellsBusyFailed();
                     collide = false;
                 } else if (!wasUncontended)       // CAS already known to fail
                     wasUncontended = true;      // Continue after rehash
                 else if (c.cas(v = c.value, apply(fn, v, x)))
                     break;
-                else if (n >= NCPU || cells != cs)
-                    collide = false;            // At max size or stale
-                else if (!collide)
-                    collide = true;
-                else if (cellsBusy == 0 && casCellsBusy()) {
-                    try {
-                        if (cells == cs)        // Expand table unless stale
-                            cells = Arrays.copyOf(cs, n << 1);
-                    } finally {
-                        cellsBusy = 0;
-                    }
-                    collide = false;
-                    continue;                   // Retry with expanded table
+                else {
+                    if (st != null)
+                        st.cellCasFailed();
+                    if (n >= maxCells || cells != cs)
+                        collide = false;            // At max size or stale
+                    else if (!collide)
+                        collide = true;
+                    else if (cellsBusy == 0 && casCellsBusy()) {
+                        try {
+                            if (cells == cs) {      // Expand table unless stale
+                                cells = Arrays.copyOf(cs, n << 1);
+                                if (st != null)
+                                    st.tableExpanded();
+                            }
+                        } finally {
+                            cellsBusy = 0;
+                        }
+                        collide = false;
+                        continue;                   // Retry with expanded table
+                    } else if (st != null)
+                        st.cellsBusyFailed();
                 }
                 h = advanceProbe(h);
+                if (st != null)
+                    st.rehashed();
+                if (bo != null)
+                    bo.backoff(++attempts);
             } else if (cellsBusy == 0 && cells == cs && casCellsBusy()) {
                 try {                           // Initialize table
                     if (cells == cs) {
-                        Cell[] rs = new Cell[2];
-                        rs[h & 1] = new Cell(Double.doubleToRawLongBits(x));
+                        Cell[] rs = new Cell[initialCells];
+                        rs[h & (initialCells - 1)] = new Cell(Double.doubleToRawLongBits(x));
                         cells = rs;
+                        if (st != null)
+                            st.tableInitialized();
                         break done;
                     }
                 } finally {
@@ -456,12 +809,21 @@ abstract class Striped64 extends Number {
             // Fall back on using base
             else if (casBase(v = base, apply(fn, v, x)))
                 break done;
+            else {
+                if (st != null)
+                    st.baseCasFailed();
+                if (bo != null)
+                    bo.backoff(++attempts);
+            }
         }
     }
 
     // VarHandle mechanics
     private static final VarHandle BASE;
     private static final VarHandle CELLSBUSY;
+    /**
+     * Thread.threadLocalRandomProbe, or null to use LocalProbe.
+     */
     private static final VarHandle THREAD_PROBE;
 
     static {
@@ -471,21 +833,32 @@ abstract class Striped64 extends Number {
                     "base", long.class);
             CELLSBUSY = l.findVarHandle(Striped64.class,
                     "cellsBusy", int.class);
-            l = java.security.AccessController.doPrivileged(
-                    new java.security.PrivilegedAction<>() {
-                        public MethodHandles.Lookup run() {
-                            try {
-                                return MethodHandles.privateLookupIn(Thread.class, MethodHandles.lookup());
-                            } catch (ReflectiveOperationException e) {
-                                throw new ExceptionInInitializerError(e);
-                            }
-                        }
-                    });
-            THREAD_PROBE = l.findVarHandle(Thread.class,
-                    "threadLocalRandomProbe", int.class);
         } catch (ReflectiveOperationException e) {
             throw new ExceptionInInitializerError(e);
         }
+        THREAD_PROBE = "local".equals(System.getProperty("cn.jaa.longadder.probe"))
+                ? null : findThreadProbe();
+    }
+
+    /**
+     * Returns a VarHandle for Thread.threadLocalRandomProbe, or null
+     * if java.lang is not open to this module.
+     */
+    private static VarHandle findThreadProbe() {
+        return java.security.AccessController.doPrivileged(
+                new java.security.PrivilegedAction<>() {
+                    public VarHandle run() {
+                        try {
+                            MethodHandles.Lookup l = MethodHandles.privateLookupIn(
+                                    Thread.class, MethodHandles.lookup());
+                            return l.findVarHandle(Thread.class,
+                                    "threadLocalRandomProbe", int.class);
+                        } catch (ReflectiveOperationException | RuntimeException e) {
+                            // 没有 --add-opens java.base/java.lang 时走这里, 退回 LocalProbe
+                            return null;
+                        }
+                    }
+                });
     }
 
 }
@@ -0,0 +1,151 @@
+package cn.jaa.longadder;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 放在 ByteBuffer 里的一组分段计数器, 供 CounterArena 等堆外实现共用
+ * <p>
+ * A fixed number of striped long counters laid out in a region of a
+ * {@link ByteBuffer}, accessed through a
+ * {@link MethodHandles#byteBufferViewVarHandle byte buffer view}. The
+ * buffer may be direct or mapped; no Java objects are allocated per
+ * counter.
+ * <p>
+ * The region is stripe-major: stripe {@code s} of every counter forms
+ * one contiguous block of {@code capacity} longs, padded to a multiple
+ * of 16 longs (128 bytes), so counter {@code id} keeps stripe {@code s}
+ * at byte {@code offset + (s * stride + id) * 8}. Two threads
+ * contending on the same counter hit different stripes, which are at
+ * least 128 bytes apart and so never share a cache line, even when
+ * the arena holds only a few counters; a counter costs
+ * {@code stripes * 8} bytes plus that rounding. Neighbouring counters
+ * do share lines within one stripe block; that only hurts when
+ * different hot keys land next to each other and their threads also
+ * pick the same stripe.
+ */
+final class StripedBuffer {
+
+    /**
+     * Bytes per stripe slot.
+     */
+    static final int SLOT = Long.BYTES;
+
+    /**
+     * Stripe blocks are padded to a multiple of this many slots, the
+     * same 128 bytes Striped64 pads its cells with.
+     */
+    static final int LINE_SLOTS = 16;
+
+    final ByteBuffer buf;
+    final int offset;
+    final int capacity;
+    final int stripes;
+
+    /**
+     * Slots per stripe block: capacity rounded up to LINE_SLOTS.
+     */
+    final int stride;
+
+    /**
+     * @param buf      the backing buffer, direct or mapped
+     * @param offset   byte offset of the region, a multiple of 8
+     * @param capacity number of counters
+     * @param stripes  stripes per counter, a power of two
+     */
+    StripedBuffer(ByteBuffer buf, int offset, int capacity, int stripes) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        if (stripes <= 0 || (stripes & (stripes - 1)) != 0)
+            throw new IllegalArgumentException("stripes must be a power of two: " + stripes);
+        if ((offset & (SLOT - 1)) != 0)
+            throw new IllegalArgumentException("misaligned offset: " + offset);
+        if ((long) offset + regionSize(capacity, stripes) > buf.capacity())
+            throw new IllegalArgumentException("buffer too small for " + capacity
+                    + " counters of " + stripes + " stripes");
+        this.buf = buf;
+        this.offset = offset;
+        this.capacity = capacity;
+        this.stripes = stripes;
+        this.stride = (int) stride(capacity);
+    }
+
+    /**
+     * Returns the number of bytes needed for the given shape.
+     */
+    static long regionSize(int capacity, int stripes) {
+        return stride(capacity) * stripes * SLOT;
+    }
+
+    private static long stride(int capacity) {
+        return ((long) capacity + LINE_SLOTS - 1) & -LINE_SLOTS;
+    }
+
+    private int index(int id, int stripe) {
+        return offset + (stripe * stride + id) * SLOT;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= capacity)
+            throw new IndexOutOfBoundsException("counter " + id + " of " + capacity);
+    }
+
+    /**
+     * Adds x to counter id. Tries a CAS on the stripe picked by the
+     * thread's probe; on failure moves the thread to another stripe
+     * and adds there unconditionally.
+     */
+    void add(int id, long x) {
+        checkId(id);
+        int h;
+        if ((h = Striped64.getProbe()) == 0) {
+            Striped64.initProbe();
+            h = Striped64.getProbe();
+        }
+        int mask = stripes - 1, i = index(id, h & mask);
+        long v = (long) LONGS.get(buf, i);
+        if (!LONGS.compareAndSet(buf, i, v, v + x)) {
+            // 冲突: 换一个 stripe, 下次也从新位置开始
+            h = Striped64.advanceProbe(h);
+            LONGS.getAndAdd(buf, index(id, h & mask), x);
+        }
+    }
+
+    long sum(int id) {
+        checkId(id);
+        long sum = 0L;
+        for (int s = 0; s < stripes; s++)
+            sum += (long) LONGS.getVolatile(buf, index(id, s));
+        return sum;
+    }
+
+    long sumThenReset(int id) {
+        checkId(id);
+        long sum = 0L;
+        for (int s = 0; s < stripes; s++)
+            sum += (long) LONGS.getAndSet(buf, index(id, s), 0L);
+        return sum;
+    }
+
+    void reset(int id) {
+        checkId(id);
+        for (int s = 0; s < stripes; s++)
+            LONGS.setVolatile(buf, index(id, s), 0L);
+    }
+
+    /**
+     * Sets counter id to the given value, for loading. Not atomic with
+     * respect to concurrent updates.
+     */
+    void set(int id, long value) {
+        reset(id);
+        LONGS.setVolatile(buf, index(id, 0), value);
+    }
+
+    static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+}
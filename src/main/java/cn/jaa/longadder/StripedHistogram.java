@@ -0,0 +1,256 @@
+package cn.jaa.longadder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 多线程记录延迟的分段直方图: 对数-线性分桶, 每个桶按 Striped64 的方式分散竞争
+ * <p>
+ * A latency histogram for many recording threads. Values are bucketed
+ * log-linearly: values below {@code 2^subBucketBits} get one bucket
+ * each, and every power of two above that is split into
+ * {@code 2^subBucketBits} equal buckets, so a bucket is never wider
+ * than {@code 2^-subBucketBits} of its values (about 3% for the
+ * default of 5 bits). Values above the configured maximum fall into
+ * the last bucket.
+ * <p>
+ * Bucket counts live in a {@link StripedBuffer}: one stripe of all
+ * buckets per probe slot, picked and rehashed the way Striped64 picks
+ * cells, so threads recording the same latency do not fight over one
+ * counter. {@link #record} allocates nothing, and the footprint is
+ * fixed at construction: {@code buckets * stripes * 8} bytes off the
+ * heap.
+ * <pre>
+ *   StripedHistogram latency = new StripedHistogram();
+ *   latency.record(System.nanoTime() - start);
+ *   StripedHistogram.Snapshot s = latency.snapshotThenReset();
+ *   long p99 = s.percentile(99.0);
+ * </pre>
+ */
+public class StripedHistogram {
+
+    /**
+     * Default sub-bucket resolution: 32 buckets per power of two.
+     */
+    public static final int DEFAULT_SUB_BUCKET_BITS = 5;
+
+    /**
+     * Default highest tracked value: one hour in nanoseconds.
+     */
+    public static final long DEFAULT_MAX_VALUE = TimeUnit.HOURS.toNanos(1L);
+
+    private final int subBucketBits;
+    private final int buckets;
+    private final StripedBuffer counts;
+
+    /**
+     * Creates a histogram tracking values up to one hour in
+     * nanoseconds with about 3% precision.
+     */
+    public StripedHistogram() {
+        this(DEFAULT_MAX_VALUE, DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Creates a histogram with the given range and precision.
+     *
+     * @param maxValue      the highest value tracked exactly; larger
+     *                      values are counted in the last bucket
+     * @param subBucketBits log2 of the number of buckets per power of
+     *                      two, from 1 to 16
+     * @throws IllegalArgumentException if an argument is out of range, or
+     *                                  the buckets times one stripe per CPU do not fit
+     *                                  in a single 2GB buffer
+     */
+    public StripedHistogram(long maxValue, int subBucketBits) {
+        if (maxValue <= 0L)
+            throw new IllegalArgumentException("maxValue must be positive");
+        if (subBucketBits < 1 || subBucketBits > 16)
+            throw new IllegalArgumentException("subBucketBits out of range: " + subBucketBits);
+        this.subBucketBits = subBucketBits;
+        this.buckets = index(maxValue, subBucketBits) + 1;
+        int stripes = Striped64.DEFAULT_MAX_CELLS;
+        // 桶数 * 条带数 * 8 字节要装进一个 ByteBuffer, 否则强转 int 会溢出成错误的容量
+        long size = StripedBuffer.regionSize(buckets, stripes) + StripedBuffer.SLOT;
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("histogram too large: " + buckets + " buckets of "
+                    + stripes + " stripes need " + size + " bytes; lower maxValue or subBucketBits");
+        ByteBuffer buf = ByteBuffer.allocateDirect((int) size)
+                .alignedSlice(StripedBuffer.SLOT);
+        this.counts = new StripedBuffer(buf, 0, buckets, stripes);
+    }
+
+    /**
+     * Returns the bucket index of value v.
+     */
+    static int index(long v, int subBucketBits) {
+        int sub = 1 << subBucketBits;
+        if (v < sub)
+            return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - subBucketBits;
+        return (shift + 1) * sub + ((int) (v >>> shift) & (sub - 1));
+    }
+
+    /**
+     * Returns the smallest value counted in bucket i.
+     */
+    static long lowerBound(int i, int subBucketBits) {
+        int sub = 1 << subBucketBits;
+        if (i < sub)
+            return i;
+        int shift = i / sub - 1;
+        return (long) (sub + (i & (sub - 1))) << shift;
+    }
+
+    /**
+     * Records one value.
+     *
+     * @param nanos the value, typically a duration in nanoseconds
+     * @throws IllegalArgumentException if {@code nanos} is negative
+     */
+    public void record(long nanos) {
+        if (nanos < 0L)
+            throw new IllegalArgumentException("negative value: " + nanos);
+        counts.add(Math.min(index(nanos, subBucketBits), buckets - 1), 1L);
+    }
+
+    /**
+     * Returns the bucket counts as they are now. Not an atomic snapshot:
+     * values recorded concurrently may or may not be included.
+     *
+     * @return a snapshot of this histogram
+     */
+    public Snapshot snapshot() {
+        long[] c = new long[buckets];
+        for (int i = 0; i < buckets; i++)
+            c[i] = counts.sum(i);
+        return new Snapshot(subBucketBits, c);
+    }
+
+    /**
+     * Returns the bucket counts and clears them, for interval
+     * reporting. Each recorded value is included in exactly one
+     * snapshot.
+     *
+     * @return a snapshot of this histogram
+     */
+    public Snapshot snapshotThenReset() {
+        long[] c = new long[buckets];
+        for (int i = 0; i < buckets; i++)
+            c[i] = counts.sumThenReset(i);
+        return new Snapshot(subBucketBits, c);
+    }
+
+    /**
+     * An immutable copy of the bucket counts of a histogram.
+     */
+    public static final class Snapshot {
+        private final int subBucketBits;
+        private final long[] counts;
+        private final long count;
+
+        Snapshot(int subBucketBits, long[] counts) {
+            this.subBucketBits = subBucketBits;
+            this.counts = counts;
+            long n = 0L;
+            for (long c : counts)
+                n += c;
+            this.count = n;
+        }
+
+        /**
+         * Returns the number of recorded values.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the value below or at which the given percentage of
+         * recorded values fall, as the upper bound of its bucket.
+         *
+         * @param percent from 0 to 100
+         * @return the percentile, or 0 if nothing was recorded
+         * @throws IllegalArgumentException if {@code percent} is out of range
+         */
+        public long percentile(double percent) {
+            if (!(percent >= 0.0 && percent <= 100.0))
+                throw new IllegalArgumentException("percent out of range: " + percent);
+            if (count == 0L)
+                return 0L;
+            long rank = Math.max(1L, (long) Math.ceil(percent / 100.0 * count));
+            long seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                if ((seen += counts[i]) >= rank)
+                    return upperBound(i);
+            }
+            return upperBound(counts.length - 1);
+        }
+
+        /**
+         * Returns the lower bound of the lowest non-empty bucket, or 0.
+         */
+        public long min() {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0L)
+                    return lowerBound(i, subBucketBits);
+            }
+            return 0L;
+        }
+
+        /**
+         * Returns the upper bound of the highest non-empty bucket, or 0.
+         */
+        public long max() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] != 0L)
+                    return upperBound(i);
+            }
+            return 0L;
+        }
+
+        /**
+         * Returns the mean, taking each value as the midpoint of its
+         * bucket, or 0 if nothing was recorded.
+         */
+        public double mean() {
+            if (count == 0L)
+                return 0.0;
+            double total = 0.0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0L)
+                    total += counts[i] * ((lowerBound(i, subBucketBits) + upperBound(i)) / 2.0);
+            }
+            return total / count;
+        }
+
+        /**
+         * Returns a snapshot holding the values of both this one and
+         * the given one, such as the same endpoint on two servers.
+         *
+         * @param other a snapshot of a histogram with the same layout
+         * @return the merged snapshot
+         * @throws IllegalArgumentException if the layouts differ
+         */
+        public Snapshot merge(Snapshot other) {
+            if (other.subBucketBits != subBucketBits || other.counts.length != counts.length)
+                throw new IllegalArgumentException("histogram layouts differ");
+            long[] c = Arrays.copyOf(counts, counts.length);
+            for (int i = 0; i < c.length; i++)
+                c[i] += other.counts[i];
+            return new Snapshot(subBucketBits, c);
+        }
+
+        private long upperBound(int i) {
+            return lowerBound(i + 1, subBucketBits) - 1L;
+        }
+
+        public String toString() {
+            return "count=" + count + ", p50=" + percentile(50.0) + ", p99=" + percentile(99.0)
+                    + ", p999=" + percentile(99.9) + ", max=" + max();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package cn.jaa.parallel;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 同步器对象自带缓存行填充的非公平可重入锁, 供 StripedLocks 的互斥段使用
+ * <p>
+ * A non-fair reentrant mutual exclusion lock with the semantics of a
+ * non-fair {@link java.util.concurrent.locks.ReentrantLock}, whose
+ * synchronizer is padded the way Striped64 pads its cells. Padding a
+ * ReentrantLock would not help: its contended state, the AQS state
+ * word and queue head and tail, lives in a separate internal
+ * synchronizer object that can land on the same cache line as another
+ * stripe's. Here the synchronizer itself carries the padding.
+ */
+final class PaddedLock implements Lock {
+
+    /**
+     * The AQS fields come first, being declared in the superclass, and
+     * the padding after them, 16 longs as in Striped64.CellRhsPadding.
+     * Nothing can be placed before the superclass fields; what lies to
+     * their left in the heap is the read-only lock wrapper allocated
+     * just before, or the trailing padding of another stripe's
+     * synchronizer.
+     */
+    @SuppressWarnings("unused")
+    static final class Sync extends AbstractQueuedSynchronizer {
+        private static final long serialVersionUID = 4353270440919187743L;
+
+        long q00, q01, q02, q03, q04, q05, q06, q07;
+        long q08, q09, q10, q11, q12, q13, q14, q15;
+
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            Thread current = Thread.currentThread();
+            int c = getState();
+            if (c == 0) {
+                if (compareAndSetState(0, acquires)) {
+                    setExclusiveOwnerThread(current);
+                    return true;
+                }
+            } else if (getExclusiveOwnerThread() == current) {
+                // 重入: 只有持锁线程会走到这里, 不需要 CAS
+                int next = c + acquires;
+                if (next < 0)
+                    throw new Error("Maximum lock count exceeded");
+                setState(next);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean tryRelease(int releases) {
+            if (getExclusiveOwnerThread() != Thread.currentThread())
+                throw new IllegalMonitorStateException();
+            int c = getState() - releases;
+            boolean free = c == 0;
+            if (free)
+                setExclusiveOwnerThread(null);
+            setState(c);
+            return free;
+        }
+
+        @Override
+        protected boolean isHeldExclusively() {
+            return getExclusiveOwnerThread() == Thread.currentThread();
+        }
+
+        Condition newCondition() {
+            return new ConditionObject();
+        }
+
+        Thread getOwner() {
+            return getState() == 0 ? null : getExclusiveOwnerThread();
+        }
+    }
+
+    private final Sync sync = new Sync();
+
+    @Override
+    public void lock() {
+        sync.acquire(1);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        sync.acquireInterruptibly(1);
+    }
+
+    @Override
+    public boolean tryLock() {
+        return sync.tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        return sync.tryAcquireNanos(1, unit.toNanos(time));
+    }
+
+    @Override
+    public void unlock() {
+        sync.release(1);
+    }
+
+    @Override
+    public Condition newCondition() {
+        return sync.newCondition();
+    }
+
+    /**
+     * Returns a string identifying this lock and its lock state, in
+     * the format of ReentrantLock.
+     */
+    public String toString() {
+        Thread o = sync.getOwner();
+        return super.toString() + ((o == null) ? "[Unlocked]" : "[Locked by thread " + o.getName() + "]");
+    }
+}
@@ -0,0 +1,178 @@
+package cn.jaa.parallel;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @Author: Jaa
+ * @Date: 2026/10/17
+ * @Description: 按 key 分段的锁池: 用 2 的幂大小的锁数组代替一把全局锁或每个 key 一把锁
+ * <p>
+ * Per-key mutual exclusion with a bounded number of locks. Keys are
+ * hashed onto a power-of-two array of stripes, the same table shape
+ * Striped64 uses for its cells, so parallelism grows with the number
+ * of stripes while memory stays fixed however many keys there are.
+ * Two keys may share a stripe; they are then serialized with each
+ * other, which is safe but slower.
+ * <pre>
+ *   StripedLocks&lt;Lock&gt; accounts = StripedLocks.lock(64);
+ *   Lock l = accounts.get(accountId);
+ *   l.lock();
+ *   try { ... } finally { l.unlock(); }
+ * </pre>
+ * Stripes are created on first use, so a large pool costs only its
+ * reference array until it is used. Exclusive stripes behave like
+ * non-fair {@link ReentrantLock}s but pad their synchronizer, the
+ * object that holds the contended state, as Striped64 pads its cells,
+ * so two busy stripes never share a cache line. Read/write stripes are
+ * plain {@link ReentrantReadWriteLock}s and are not padded: their
+ * synchronizer is internal to the JDK class, and a padded copy of it
+ * would mean reimplementing reentrant read/write locking.
+ * <p>
+ * To lock several keys at once, such as both accounts of a transfer,
+ * take the locks from {@link #bulkGet} in the order returned. It sorts
+ * them by stripe and drops duplicates, so two threads locking
+ * overlapping key sets cannot deadlock, and a key set whose keys share
+ * a stripe does not lock it twice.
+ *
+ * @param <L> the type of lock, {@link Lock} or {@link ReadWriteLock}
+ */
+public abstract class StripedLocks<L> {
+
+    /**
+     * Largest number of stripes.
+     */
+    static final int MAXIMUM_STRIPES = 1 << 30;
+
+    private final Object[] stripes;
+    private final int mask;
+
+    StripedLocks(int stripes) {
+        if (stripes <= 0)
+            throw new IllegalArgumentException("stripes must be positive");
+        int n = stripes >= MAXIMUM_STRIPES ? MAXIMUM_STRIPES
+                : stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Object[n];
+        this.mask = n - 1;
+    }
+
+    /**
+     * Returns a pool of exclusive locks.
+     *
+     * @param stripes the number of stripes, rounded up to a power of two
+     * @return the pool
+     * @throws IllegalArgumentException if {@code stripes} is not positive
+     */
+    public static StripedLocks<Lock> lock(int stripes) {
+        return new StripedLocks<Lock>(stripes) {
+            @Override
+            Lock newStripe() {
+                return new PaddedLock();
+            }
+        };
+    }
+
+    /**
+     * Returns a pool of read/write locks.
+     *
+     * @param stripes the number of stripes, rounded up to a power of two
+     * @return the pool
+     * @throws IllegalArgumentException if {@code stripes} is not positive
+     */
+    public static StripedLocks<ReadWriteLock> readWriteLock(int stripes) {
+        return new StripedLocks<ReadWriteLock>(stripes) {
+            @Override
+            ReadWriteLock newStripe() {
+                return new ReentrantReadWriteLock();
+            }
+        };
+    }
+
+    /**
+     * Creates the lock of a stripe.
+     */
+    abstract L newStripe();
+
+    /**
+     * Returns the number of stripes.
+     */
+    public int size() {
+        return stripes.length;
+    }
+
+    /**
+     * Returns the stripe index of the given key.
+     *
+     * @param key the key
+     * @return an index from 0 to {@code size() - 1}
+     * @throws NullPointerException if {@code key} is null
+     */
+    public int indexFor(Object key) {
+        int h = key.hashCode();
+        // 乘以 2^32 / 黄金分割比 (Fibonacci hashing), 再把高位折到低位, 避免低位相同的 hashCode 挤在同一段;
+        // Striped64 的探针是每线程的随机数, 不能用来给 key 定位, 这里只是借用了它播种探针的同一个常数
+        h *= 0x9e3779b9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the lock of the stripe the given key maps to.
+     *
+     * @param key the key
+     * @return the lock
+     * @throws NullPointerException if {@code key} is null
+     */
+    public L get(Object key) {
+        return getAt(indexFor(key));
+    }
+
+    /**
+     * Returns the lock of the given stripe, creating it if needed.
+     *
+     * @param index the stripe index
+     * @return the lock
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public L getAt(int index) {
+        Object l = STRIPES.getAcquire(stripes, index);
+        if (l == null) {
+            Object created = newStripe();
+            // 并发创建时只保留先发布的那一把
+            l = STRIPES.compareAndExchange(stripes, index, null, created);
+            if (l == null)
+                l = created;
+        }
+        return (L) l;
+    }
+
+    /**
+     * Returns the locks of all given keys, each stripe once, in
+     * ascending stripe order. Acquiring them in this order and
+     * releasing them in reverse is deadlock-free against any other
+     * thread doing the same.
+     *
+     * @param keys the keys
+     * @return the locks, in acquisition order
+     * @throws NullPointerException if a key is null
+     */
+    public List<L> bulkGet(Iterable<?> keys) {
+        BitSet indices = new BitSet();
+        for (Object key : keys)
+            indices.set(indexFor(key));
+        List<L> locks = new ArrayList<>(indices.cardinality());
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1))
+            locks.add(getAt(i));
+        return locks;
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle STRIPES = MethodHandles.arrayElementVarHandle(Object[].class);
+}